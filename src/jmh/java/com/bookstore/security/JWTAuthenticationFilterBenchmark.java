@@ -0,0 +1,46 @@
+package com.bookstore.security;
+
+import com.bookstore.model.User;
+import com.bookstore.service.dto.LoginCredentialsDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading the credentials of a login: a new ObjectMapper binding the
+ * user entity, as the filter used to, against the shared reader. Run with
+ * {@code -prof gc} to compare allocations per login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JWTAuthenticationFilterBenchmark {
+
+    private static final byte[] BODY = "{\"userName\":\"user\",\"userPassword\":\"secret12\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public User newMapperIntoEntity() throws IOException {
+        return new ObjectMapper().readValue(new ByteArrayInputStream(BODY), User.class);
+    }
+
+    @Benchmark
+    public LoginCredentialsDTO sharedReaderIntoCredentials() throws IOException {
+        return JWTAuthenticationFilter.readCredentials(new ByteArrayInputStream(BODY), BODY.length);
+    }
+}
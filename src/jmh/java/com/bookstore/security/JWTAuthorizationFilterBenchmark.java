@@ -0,0 +1,70 @@
+package com.bookstore.security;
+
+import com.bookstore.config.CacheConfiguration;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static com.bookstore.security.SecurityConstants.*;
+
+/**
+ * Cost of authenticating a request carrying a token already seen, with and
+ * without the token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JWTAuthorizationFilterBenchmark {
+
+    private String header;
+
+    private JWTAuthorizationFilter cachingFilter;
+
+    private JWTAuthorizationFilter verifyingFilter;
+
+    @Setup
+    public void setUp() {
+        header = TOKEN_PREFIX + Jwts.builder()
+                .setSubject("user")
+                .claim(AUTHORITIES_KEY, USER + "," + ADMIN)
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
+                .signWith(SignatureAlgorithm.HS512, SECRET.getBytes())
+                .compact();
+
+        AuthenticationManager authenticationManager = authentication -> authentication;
+        cachingFilter = new JWTAuthorizationFilter(authenticationManager,
+                new CaffeineCache(CacheConfiguration.TOKENS, Caffeine.newBuilder().maximumSize(1_000).build()));
+        verifyingFilter = new JWTAuthorizationFilter(authenticationManager,
+                new NoOpCache(CacheConfiguration.TOKENS));
+    }
+
+    @Benchmark
+    public UsernamePasswordAuthenticationToken cachedToken() {
+        return cachingFilter.getAuthentication(header);
+    }
+
+    @Benchmark
+    public UsernamePasswordAuthenticationToken verifiedToken() {
+        return verifyingFilter.getAuthentication(header);
+    }
+}
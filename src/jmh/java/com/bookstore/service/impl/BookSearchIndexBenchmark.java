@@ -0,0 +1,66 @@
+package com.bookstore.service.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a catalog search over a million synthetic books, for a rare word,
+ * a common one, a word prefix, an ISBN prefix and a two-word query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class BookSearchIndexBenchmark {
+
+    private static final int BOOKS = 1_000_000;
+
+    /**
+     * Vocabulary size; word i occurs with a frequency proportional to 1 / (i + 1).
+     */
+    private static final int WORDS = 50_000;
+
+    @Param({"w20000", "w500", "w1", "w49", "97", "w3 w500"})
+    public String query;
+
+    private BookSearchIndex index;
+
+    @Setup
+    public void buildIndex() {
+        Random random = new Random(42);
+        index = new BookSearchIndex();
+        for (long bookId = 1; bookId <= BOOKS; bookId++) {
+            index.put(bookId, words(random, 4), words(random, 2), String.format("978%010d", bookId), words(random, 20));
+        }
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            // inverse transform sampling of the 1 / (i + 1) distribution
+            int word = (int) Math.exp(random.nextDouble() * Math.log(WORDS)) - 1;
+            words.append('w').append(word).append(' ');
+        }
+        return words.toString();
+    }
+
+    @Benchmark
+    public List<BookSearchIndex.Hit> search() {
+        return index.search(query, null, 21);
+    }
+}
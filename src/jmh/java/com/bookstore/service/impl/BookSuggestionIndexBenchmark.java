@@ -0,0 +1,75 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.service.dto.BookSuggestionDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the suggestions of a keystroke over the titles and authors of a
+ * million synthetic books, for prefixes from one to four letters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class BookSuggestionIndexBenchmark {
+
+    private static final int BOOKS = 1_000_000;
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    @Param({"t", "th", "the", "then"})
+    public String prefix;
+
+    private BookSuggestionIndex index;
+
+    @Setup
+    public void buildIndex() {
+        Random random = new Random(42);
+        List<BookSuggestionIndex.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            String title = words(random, 1 + random.nextInt(5));
+            entries.add(new BookSuggestionIndex.Entry(BookSuggestionDTO.Type.TITLE, BookSuggestionIndex.fold(title),
+                    title, random.nextInt(1000)));
+            if (i % 4 == 0) {
+                String author = words(random, 2);
+                entries.add(new BookSuggestionIndex.Entry(BookSuggestionDTO.Type.AUTHOR, BookSuggestionIndex.fold(author),
+                        author, random.nextInt(4000)));
+            }
+        }
+        index = BookSuggestionIndex.build(entries);
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int length = 2 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                words.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            }
+            words.append(' ');
+        }
+        return words.toString();
+    }
+
+    @Benchmark
+    public List<BookSuggestionDTO> complete() {
+        return index.complete(prefix, 10);
+    }
+}
@@ -0,0 +1,105 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.config.ApplicationProperties;
+import com.bookstore.model.Book;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderBook;
+import com.bookstore.service.dto.BookSuggestionDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of keeping the suggestions of a million synthetic books current: a
+ * sale, a renamed book merged by a refresh, and, for comparison, a build of
+ * the whole index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class BookSuggestionServiceBenchmark {
+
+    private static final int BOOKS = 1_000_000;
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    private final Random random = new Random(42);
+
+    private BookSuggestionServiceImpl bookSuggestionService;
+
+    private List<BookSuggestionIndex.Entry> entries;
+
+    private long renames;
+
+    @Setup
+    public void loadBooks() {
+        bookSuggestionService = new BookSuggestionServiceImpl(null, new ApplicationProperties());
+        entries = new ArrayList<>();
+        for (long bookId = 0; bookId < BOOKS; bookId++) {
+            String title = words(1 + random.nextInt(5));
+            String author = words(2);
+            bookSuggestionService.index(book(bookId, title, author));
+            entries.add(new BookSuggestionIndex.Entry(BookSuggestionDTO.Type.TITLE, BookSuggestionIndex.fold(title),
+                    title, random.nextInt(1000)));
+            entries.add(new BookSuggestionIndex.Entry(BookSuggestionDTO.Type.AUTHOR, BookSuggestionIndex.fold(author),
+                    author, random.nextInt(1000)));
+        }
+        bookSuggestionService.refresh();
+    }
+
+    private String words(int count) {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int length = 2 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                words.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            }
+            words.append(' ');
+        }
+        return words.toString();
+    }
+
+    private static Book book(long bookId, String title, String author) {
+        Book book = new Book();
+        book.setBookId(bookId);
+        book.setBookTitle(title);
+        book.setBookAuthor(author);
+        return book;
+    }
+
+    @Benchmark
+    public void addSales() {
+        Order order = new Order();
+        OrderBook line = new OrderBook(order, book(random.nextInt(BOOKS), null, null));
+        line.setQuantity(1L);
+        order.getBooks().add(line);
+        bookSuggestionService.addSales(order);
+    }
+
+    @Benchmark
+    public void renameAndRefresh() {
+        long bookId = random.nextInt(BOOKS);
+        bookSuggestionService.index(book(bookId, "renamed " + renames++, "renamed author " + bookId));
+        bookSuggestionService.refresh();
+    }
+
+    @Benchmark
+    public BookSuggestionIndex build() {
+        return BookSuggestionIndex.build(entries);
+    }
+}
@@ -0,0 +1,131 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.repository.BookStockRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Checkouts of a single hot book by 64 threads through a pool of 20
+ * connections, as configured for the application. A checkout takes a copy and
+ * inserts the order in one transaction; the commit is slowed down to model the
+ * log flush of a durable database, the in-memory database committing for free.
+ * <p>
+ * rowLockedForTheOrder takes the copy inside the order transaction, keeping the
+ * row of the book locked until the order commits. reserved takes it through the
+ * StockReserver first, combining concurrent checkouts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class StockReserverBenchmark {
+
+    private static final long HOT_BOOK = 1L;
+
+    @Param({"0", "1"})
+    public long commitMillis;
+
+    private HikariDataSource pool;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate orderTransaction;
+
+    private BookStockRepository bookStockRepository;
+
+    private StockReserver stockReserver;
+
+    @Setup
+    public void setUp() {
+        pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:stock;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=60000");
+        pool.setMaximumPoolSize(20);
+        pool.setConnectionTimeout(60000);
+        SlowCommitDataSource dataSource = new SlowCommitDataSource(pool, commitMillis);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table book_stock (book_id bigint primary key, quantity bigint not null)");
+        jdbcTemplate.execute("create table orders (id bigint auto_increment primary key, book_id bigint)");
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        orderTransaction = new TransactionTemplate(transactionManager);
+        bookStockRepository = new BookStockRepository(jdbcTemplate);
+        bookStockRepository.updateQuantity(HOT_BOOK, Long.MAX_VALUE / 2);
+        stockReserver = new StockReserver(bookStockRepository, transactionManager);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.execute("drop all objects");
+        pool.close();
+    }
+
+    @Benchmark
+    public Object rowLockedForTheOrder() {
+        return orderTransaction.execute(status -> {
+            bookStockRepository.take(HOT_BOOK, 1);
+            return jdbcTemplate.update("insert into orders (book_id) values (?)", HOT_BOOK);
+        });
+    }
+
+    @Benchmark
+    public Object reserved() {
+        stockReserver.take(HOT_BOOK, 1);
+        return orderTransaction.execute(status ->
+                jdbcTemplate.update("insert into orders (book_id) values (?)", HOT_BOOK));
+    }
+
+    /**
+     * Pauses every commit for the given time.
+     */
+    private static class SlowCommitDataSource extends DelegatingDataSource {
+
+        private final long commitNanos;
+
+        SlowCommitDataSource(HikariDataSource pool, long commitMillis) {
+            super(pool);
+            this.commitNanos = TimeUnit.MILLISECONDS.toNanos(commitMillis);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("commit") && commitNanos > 0) {
+                            LockSupport.parkNanos(commitNanos);
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.bookstore;
 
+import com.bookstore.config.ApplicationProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 @SpringBootApplication
+@EnableConfigurationProperties(ApplicationProperties.class)
 public class Application {
 
 	public static void main(String[] args) {
@@ -13,7 +16,7 @@ public class Application {
 	}
 
 	@Bean
-	public BCryptPasswordEncoder bCryptPasswordEncoder(){
-		return  new BCryptPasswordEncoder();
+	public BCryptPasswordEncoder bCryptPasswordEncoder(ApplicationProperties applicationProperties){
+		return  new BCryptPasswordEncoder(applicationProperties.getPassword().getBcryptStrength());
 	}
 }
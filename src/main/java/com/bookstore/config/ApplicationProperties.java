@@ -0,0 +1,440 @@
+package com.bookstore.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Properties specific to the bookstore.
+ * <p>
+ * Properties are configured in the application.properties file under the "bookstore" prefix.
+ */
+@ConfigurationProperties(prefix = "bookstore", ignoreUnknownFields = false)
+public class ApplicationProperties {
+
+    private final Image image = new Image();
+
+    private final Cache cache = new Cache();
+
+    private final Ingestion ingestion = new Ingestion();
+
+    private final Password password = new Password();
+
+    private final Replica replica = new Replica();
+
+    private final Suggestion suggestion = new Suggestion();
+
+    private final Sales sales = new Sales();
+
+    private final CatalogImport catalogImport = new CatalogImport();
+
+    public Image getImage() {
+        return image;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Ingestion getIngestion() {
+        return ingestion;
+    }
+
+    public Password getPassword() {
+        return password;
+    }
+
+    public Replica getReplica() {
+        return replica;
+    }
+
+    public Suggestion getSuggestion() {
+        return suggestion;
+    }
+
+    public Sales getSales() {
+        return sales;
+    }
+
+    public CatalogImport getCatalogImport() {
+        return catalogImport;
+    }
+
+    public static class Image {
+
+        /**
+         * Widths in pixels of the derivatives generated for every uploaded image.
+         */
+        private List<Integer> variantWidths = new ArrayList<>(Arrays.asList(96, 192, 384, 768));
+
+        private int workerThreads = 2;
+
+        private int queueCapacity = 100;
+
+        private float jpegQuality = 0.85f;
+
+        public List<Integer> getVariantWidths() {
+            return variantWidths;
+        }
+
+        public void setVariantWidths(List<Integer> variantWidths) {
+            this.variantWidths = variantWidths;
+        }
+
+        public int getWorkerThreads() {
+            return workerThreads;
+        }
+
+        public void setWorkerThreads(int workerThreads) {
+            this.workerThreads = workerThreads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public float getJpegQuality() {
+            return jpegQuality;
+        }
+
+        public void setJpegQuality(float jpegQuality) {
+            this.jpegQuality = jpegQuality;
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Books by id.
+         */
+        private final CacheSpec books = new CacheSpec(10_000, 600);
+
+        /**
+         * Pages of the catalog listing, cleared on every catalog write.
+         */
+        private final CacheSpec bookPages = new CacheSpec(1_000, 60);
+
+        /**
+         * Principals of verified JWT tokens. Entries never outlive their token.
+         */
+        private final CacheSpec tokens = new CacheSpec(100_000, 3600);
+
+        /**
+         * Users with their authorities by user name, cleared on every user write.
+         */
+        private final CacheSpec users = new CacheSpec(10_000, 60);
+
+        public CacheSpec getBooks() {
+            return books;
+        }
+
+        public CacheSpec getBookPages() {
+            return bookPages;
+        }
+
+        public CacheSpec getTokens() {
+            return tokens;
+        }
+
+        public CacheSpec getUsers() {
+            return users;
+        }
+    }
+
+    public static class Ingestion {
+
+        /**
+         * Enables POST /orders/ingestion, which queues orders in a journal file
+         * and writes them to the database in batches.
+         */
+        private boolean enabled = false;
+
+        private String journalDirectory = "data/journal";
+
+        /**
+         * Orders written per transaction.
+         */
+        private int batchSize = 200;
+
+        /**
+         * Pause of the writer once the queue is drained.
+         */
+        private long pollIntervalMillis = 200;
+
+        /**
+         * How long the status of a written order stays in memory; older handles are looked up in the database.
+         */
+        private long statusRetentionSeconds = 3600;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getJournalDirectory() {
+            return journalDirectory;
+        }
+
+        public void setJournalDirectory(String journalDirectory) {
+            this.journalDirectory = journalDirectory;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getPollIntervalMillis() {
+            return pollIntervalMillis;
+        }
+
+        public void setPollIntervalMillis(long pollIntervalMillis) {
+            this.pollIntervalMillis = pollIntervalMillis;
+        }
+
+        public long getStatusRetentionSeconds() {
+            return statusRetentionSeconds;
+        }
+
+        public void setStatusRetentionSeconds(long statusRetentionSeconds) {
+            this.statusRetentionSeconds = statusRetentionSeconds;
+        }
+    }
+
+    public static class Password {
+
+        /**
+         * BCrypt cost of new hashes. Passwords stored with another cost are
+         * hashed again on the next successful login.
+         */
+        private int bcryptStrength = 10;
+
+        /**
+         * Threads checking and hashing passwords; logins beyond them queue.
+         */
+        private int hashingThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        /**
+         * Logins waiting for a hashing thread; further logins get 429 (Too Many Requests).
+         */
+        private int hashingQueueCapacity = 50;
+
+        public int getBcryptStrength() {
+            return bcryptStrength;
+        }
+
+        public void setBcryptStrength(int bcryptStrength) {
+            this.bcryptStrength = bcryptStrength;
+        }
+
+        public int getHashingThreads() {
+            return hashingThreads;
+        }
+
+        public void setHashingThreads(int hashingThreads) {
+            this.hashingThreads = hashingThreads;
+        }
+
+        public int getHashingQueueCapacity() {
+            return hashingQueueCapacity;
+        }
+
+        public void setHashingQueueCapacity(int hashingQueueCapacity) {
+            this.hashingQueueCapacity = hashingQueueCapacity;
+        }
+    }
+
+    public static class Replica {
+
+        /**
+         * JDBC url of a MySQL replica serving read-only transactions; without
+         * it every transaction goes to spring.datasource.url. The replica pool
+         * is sized and tuned like the primary one.
+         */
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        /**
+         * How long the reads of a user who placed an order go to the primary,
+         * which should cover the replication lag.
+         */
+        private long readYourWritesMillis = 5000;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public long getReadYourWritesMillis() {
+            return readYourWritesMillis;
+        }
+
+        public void setReadYourWritesMillis(long readYourWritesMillis) {
+            this.readYourWritesMillis = readYourWritesMillis;
+        }
+    }
+
+    public static class Suggestion {
+
+        /**
+         * How often the suggestion index is rebuilt when books or sales changed;
+         * changes show up in the suggestions within this delay.
+         */
+        private long refreshIntervalMillis = 1000;
+
+        /**
+         * Upper bound of the number of suggestions a client can ask for.
+         */
+        private int maxSuggestions = 20;
+
+        public long getRefreshIntervalMillis() {
+            return refreshIntervalMillis;
+        }
+
+        public void setRefreshIntervalMillis(long refreshIntervalMillis) {
+            this.refreshIntervalMillis = refreshIntervalMillis;
+        }
+
+        public int getMaxSuggestions() {
+            return maxSuggestions;
+        }
+
+        public void setMaxSuggestions(int maxSuggestions) {
+            this.maxSuggestions = maxSuggestions;
+        }
+    }
+
+    public static class Sales {
+
+        /**
+         * How often the sales counted in memory are written to the daily rollups;
+         * rankings include sales after at most this delay.
+         */
+        private long flushIntervalMillis = 5000;
+
+        /**
+         * Upper bound of the number of bestsellers a client can ask for.
+         */
+        private int maxBestsellers = 100;
+
+        public long getFlushIntervalMillis() {
+            return flushIntervalMillis;
+        }
+
+        public void setFlushIntervalMillis(long flushIntervalMillis) {
+            this.flushIntervalMillis = flushIntervalMillis;
+        }
+
+        public int getMaxBestsellers() {
+            return maxBestsellers;
+        }
+
+        public void setMaxBestsellers(int maxBestsellers) {
+            this.maxBestsellers = maxBestsellers;
+        }
+    }
+
+    public static class CatalogImport {
+
+        /**
+         * Rows upserted per transaction by POST /books/import.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Longest row of a feed, in characters; reading stops at a longer one.
+         */
+        private int maxRowLength = 65536;
+
+        /**
+         * Errors listed in the import report; further errors are only counted.
+         */
+        private int maxReportedErrors = 1000;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxRowLength() {
+            return maxRowLength;
+        }
+
+        public void setMaxRowLength(int maxRowLength) {
+            this.maxRowLength = maxRowLength;
+        }
+
+        public int getMaxReportedErrors() {
+            return maxReportedErrors;
+        }
+
+        public void setMaxReportedErrors(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+    }
+
+    public static class CacheSpec {
+
+        private long maximumSize;
+
+        private long timeToLiveSeconds;
+
+        public CacheSpec(long maximumSize, long timeToLiveSeconds) {
+            this.maximumSize = maximumSize;
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+    }
+}
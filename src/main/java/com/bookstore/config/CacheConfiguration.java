@@ -0,0 +1,50 @@
+package com.bookstore.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    public static final String BOOKS = "books";
+
+    public static final String BOOK_PAGES = "bookPages";
+
+    public static final String TOKENS = "tokens";
+
+    public static final String USERS = "users";
+
+    /**
+     * In-process caches, each bounded in size and expiring after a time to live.
+     * Statistics are recorded and published by {@link CacheMetrics}.
+     */
+    @Bean
+    public CacheManager cacheManager(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Cache cache = applicationProperties.getCache();
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(Arrays.asList(
+                caffeineCache(BOOKS, cache.getBooks()),
+                caffeineCache(BOOK_PAGES, cache.getBookPages()),
+                caffeineCache(TOKENS, cache.getTokens()),
+                caffeineCache(USERS, cache.getUsers())
+        ));
+        return cacheManager;
+    }
+
+    private static CaffeineCache caffeineCache(String name, ApplicationProperties.CacheSpec spec) {
+        return new CaffeineCache(name, Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(spec.getTimeToLiveSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build());
+    }
+}
@@ -0,0 +1,48 @@
+package com.bookstore.config;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Publishes the hit, miss and eviction counters of the Caffeine caches on the
+ * metrics endpoint, as cache.{name}.hit.count and so on.
+ */
+@Component
+public class CacheMetrics implements PublicMetrics {
+
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public CacheMetrics(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (!(cache instanceof CaffeineCache)) {
+                continue;
+            }
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = ((CaffeineCache) cache).getNativeCache();
+            CacheStats stats = nativeCache.stats();
+            String prefix = "cache." + name + ".";
+            metrics.add(new Metric<>(prefix + "hit.count", stats.hitCount()));
+            metrics.add(new Metric<>(prefix + "miss.count", stats.missCount()));
+            metrics.add(new Metric<>(prefix + "eviction.count", stats.evictionCount()));
+            metrics.add(new Metric<>(prefix + "entries", nativeCache.estimatedSize()));
+        }
+        return metrics;
+    }
+}
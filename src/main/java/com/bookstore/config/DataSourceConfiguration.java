@@ -0,0 +1,81 @@
+package com.bookstore.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Hikari pool configured by the spring.datasource properties, behind a
+ * {@link LazyConnectionDataSourceProxy}: a transaction takes a connection on
+ * its first statement rather than when it begins, so work done before the
+ * first query, such as hashing a password, does not hold one.
+ * <p>
+ * When bookstore.replica.url is set, a second pool copying the settings of the
+ * first serves read-only transactions through a {@link RoutingDataSource}.
+ * <p>
+ * The pools are not beans of their own: Boot initializes the schema on the
+ * data source as soon as any data source bean is created, which would be
+ * before the proxy exists.
+ */
+@Configuration
+public class DataSourceConfiguration {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariConfig primaryPoolConfig(DataSourceProperties properties) {
+        HikariConfig config = new HikariConfig();
+        config.setDriverClassName(properties.determineDriverClassName());
+        config.setJdbcUrl(properties.determineUrl());
+        config.setUsername(properties.determineUsername());
+        config.setPassword(properties.determinePassword());
+        return config;
+    }
+
+    @Bean
+    public DataSource dataSource(HikariConfig primaryPoolConfig, ApplicationProperties applicationProperties,
+                                 DataSourceMetrics dataSourceMetrics) {
+        ApplicationProperties.Replica replicaProperties = applicationProperties.getReplica();
+        String poolName = primaryPoolConfig.getPoolName() != null ? primaryPoolConfig.getPoolName() : "bookstore";
+
+        HikariDataSource primary = pool(primaryPoolConfig, poolName, dataSourceMetrics);
+        if (replicaProperties.getUrl() == null) {
+            return new LazyConnectionDataSourceProxy(primary);
+        }
+
+        HikariDataSource replica = pool(primaryPoolConfig, poolName + "-replica", dataSourceMetrics);
+        replica.setJdbcUrl(replicaProperties.getUrl());
+        replica.setUsername(replicaProperties.getUsername());
+        replica.setPassword(replicaProperties.getPassword());
+        replica.setReadOnly(true);
+
+        RoutingDataSource routing = new RoutingDataSource(primary, replica);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @PreDestroy
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private HikariDataSource pool(HikariConfig config, String poolName, DataSourceMetrics dataSourceMetrics) {
+        // started on the first connection, like the pool Boot creates
+        HikariDataSource pool = new HikariDataSource();
+        config.copyState(pool);
+        pool.setPoolName(poolName);
+        pool.setMetricsTrackerFactory(dataSourceMetrics);
+        pools.add(pool);
+        return pool;
+    }
+}
@@ -0,0 +1,92 @@
+package com.bookstore.config;
+
+import com.zaxxer.hikari.metrics.MetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the Hikari pools created by {@link DataSourceConfiguration} and
+ * publishes their state on the metrics endpoint as datasource.pool.{pool name}.*:
+ * connection counts, threads waiting, how long getting a connection took and
+ * how often it timed out, and how long connections were held.
+ */
+@Component
+public class DataSourceMetrics implements MetricsTrackerFactory, PublicMetrics {
+
+    private final Map<String, PoolMetrics> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public MetricsTracker create(String poolName, PoolStats poolStats) {
+        PoolMetrics tracker = new PoolMetrics(poolStats);
+        pools.put(poolName, tracker);
+        return tracker;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        pools.forEach((name, pool) -> pool.addTo(metrics, "datasource.pool." + name + "."));
+        return metrics;
+    }
+
+    private static class PoolMetrics extends MetricsTracker {
+
+        private final PoolStats poolStats;
+
+        private final LongAdder acquireCount = new LongAdder();
+
+        private final LongAdder acquireNanos = new LongAdder();
+
+        private final LongAdder usageCount = new LongAdder();
+
+        private final LongAdder usageMillis = new LongAdder();
+
+        private final LongAdder timeoutCount = new LongAdder();
+
+        PoolMetrics(PoolStats poolStats) {
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquireCount.increment();
+            acquireNanos.add(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageCount.increment();
+            usageMillis.add(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeoutCount.increment();
+        }
+
+        void addTo(List<Metric<?>> metrics, String prefix) {
+            long acquired = acquireCount.sum();
+            long used = usageCount.sum();
+            metrics.add(new Metric<>(prefix + "total", poolStats.getTotalConnections()));
+            metrics.add(new Metric<>(prefix + "active", poolStats.getActiveConnections()));
+            metrics.add(new Metric<>(prefix + "idle", poolStats.getIdleConnections()));
+            metrics.add(new Metric<>(prefix + "pending", poolStats.getPendingThreads()));
+            metrics.add(new Metric<>(prefix + "acquire.count", acquired));
+            metrics.add(new Metric<>(prefix + "acquire.wait.mean",
+                    acquired == 0 ? 0.0 : acquireNanos.sum() / 1e6 / acquired));
+            metrics.add(new Metric<>(prefix + "usage.mean",
+                    used == 0 ? 0.0 : (double) usageMillis.sum() / used));
+            metrics.add(new Metric<>(prefix + "timeout.count", timeoutCount.sum()));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.bookstore.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Book and order ids are allocated in blocks of 50 from the hibernate_sequences
+ * table, one row per entity table. The rows are placed past the highest id
+ * already used, so databases filled while ids were auto increment keep working.
+ * Depends on the entity manager factory, which creates the table.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class IdSequenceInitializer {
+
+    private static final List<String> TABLES = Arrays.asList("book", "orders");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        for (String table : TABLES) {
+            Long next = jdbcTemplate.queryForObject(
+                    "select coalesce(max(id), 0) + 1 from " + table, Long.class);
+            List<Long> current = jdbcTemplate.queryForList(
+                    "select next_val from hibernate_sequences where sequence_name = ?", Long.class, table);
+            if (current.isEmpty()) {
+                jdbcTemplate.update(
+                        "insert into hibernate_sequences (sequence_name, next_val) values (?, ?)", table, next);
+            } else if (current.get(0) < next) {
+                jdbcTemplate.update(
+                        "update hibernate_sequences set next_val = ? where sequence_name = ?", next, table);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.bookstore.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ImageConfiguration {
+
+    /**
+     * Worker pool decoding uploads and encoding their derivatives. The queue is
+     * bounded; when it is full the submitting thread does the work itself.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor imageVariantExecutor(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Image image = applicationProperties.getImage();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(image.getWorkerThreads());
+        executor.setMaxPoolSize(image.getWorkerThreads());
+        executor.setQueueCapacity(image.getQueueCapacity());
+        executor.setThreadNamePrefix("image-variant-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+}
@@ -0,0 +1,32 @@
+package com.bookstore.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+@Configuration
+public class JpaConfiguration {
+
+    /**
+     * Puts {@link ReadOnlyJpaDialect} on the entity manager factory Boot
+     * creates; the transaction manager takes its dialect from there.
+     */
+    @Bean
+    public static BeanPostProcessor readOnlyJpaDialectPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractEntityManagerFactoryBean) {
+                    ((AbstractEntityManagerFactoryBean) bean).setJpaDialect(new ReadOnlyJpaDialect());
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.bookstore.config;
+
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.sql.SQLException;
+
+/**
+ * Besides the manual flush mode Spring already sets, marks the session of a
+ * read-only transaction read-only, so that Hibernate keeps no snapshots of
+ * the entities it loads for dirty checking.
+ */
+public class ReadOnlyJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly()) {
+            return transactionData;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        session.setDefaultReadOnly(true);
+        return new ReadOnlyTransactionData(session, transactionData);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReadOnlyTransactionData) {
+            ReadOnlyTransactionData readOnlyData = (ReadOnlyTransactionData) transactionData;
+            // the session may outlive the transaction
+            readOnlyData.session.setDefaultReadOnly(false);
+            transactionData = readOnlyData.transactionData;
+        }
+        super.cleanupTransaction(transactionData);
+    }
+
+    private static class ReadOnlyTransactionData {
+
+        private final Session session;
+
+        private final Object transactionData;
+
+        ReadOnlyTransactionData(Session session, Object transactionData) {
+            this.session = session;
+            this.transactionData = transactionData;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.bookstore.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads of users who wrote recently go to the primary, so that an order a
+ * user has just placed shows up in their next requests even when the replica
+ * lags. Runs after the security filters, which set the user.
+ */
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    @Autowired
+    public ReadYourWritesFilter(ApplicationProperties applicationProperties) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(applicationProperties.getReplica().getReadYourWritesMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Sends the reads of the user to the primary for the configured time.
+     */
+    public void recordWrite(String userName) {
+        recentWriters.put(userName, Boolean.TRUE);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || recentWriters.getIfPresent(authentication.getName()) == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        RoutingDataSource.setPrimaryOnly();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RoutingDataSource.clearPrimaryOnly();
+        }
+    }
+}
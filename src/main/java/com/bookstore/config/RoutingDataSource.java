@@ -0,0 +1,111 @@
+package com.bookstore.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the
+ * primary. A read falls back to the primary when the replica cannot hand out
+ * a connection, and reads of the current thread can be pinned to the primary
+ * to see its own recent writes.
+ * <p>
+ * The transaction manager asks for a connection before it marks the
+ * transaction read-only, so this must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutingDataSource.class);
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final DataSource primary;
+
+    private final DataSource replica;
+
+    public RoutingDataSource(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Runs the reads of the current thread against the primary until {@link #clearPrimaryOnly()}.
+     */
+    public static void setPrimaryOnly() {
+        PRIMARY_ONLY.set(Boolean.TRUE);
+    }
+
+    public static void clearPrimaryOnly() {
+        PRIMARY_ONLY.remove();
+    }
+
+    /**
+     * Runs a read against the primary, also inside a read-only transaction
+     * provided it has not run a statement yet. Used for reads that fill shared
+     * caches, which must not keep what a lagging replica returned.
+     */
+    public static <T> T readFromPrimary(Supplier<T> read) {
+        Boolean pinned = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (pinned == null) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && PRIMARY_ONLY.get() == null) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection getConnection(ConnectionSource source) throws SQLException {
+        if (determineCurrentLookupKey() == Route.PRIMARY) {
+            return source.getConnection(primary);
+        }
+        try {
+            return source.getConnection(replica);
+        } catch (SQLException e) {
+            log.warn("Replica unavailable, reading from the primary: {}", e.getMessage());
+            return source.getConnection(primary);
+        }
+    }
+
+    private interface ConnectionSource {
+
+        Connection getConnection(DataSource dataSource) throws SQLException;
+    }
+
+    enum Route {
+        PRIMARY, REPLICA
+    }
+}
@@ -1,6 +1,10 @@
 package com.bookstore.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -11,11 +15,21 @@ import java.util.List;
 import java.util.Objects;
 
 @Entity
-@Table(name = "book")
+@Table(name = "book", indexes = {
+        @Index(name = "idx_book_title", columnList = "title,id"),
+        @Index(name = "idx_book_price", columnList = "price,id"),
+        @Index(name = "idx_book_isbn", columnList = "isbn")
+})
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Book implements Serializable{
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "book_id")
+    @GenericGenerator(name = "book_id", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+            @Parameter(name = "segment_value", value = "book"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     @Column(name = "id")
     private Long bookId;
 
@@ -37,13 +51,38 @@ public class Book implements Serializable{
     @Column(name = "description", columnDefinition = "text")
     private String bookDescription;
 
-    @Lob
-    @Column(name = "image")
+    /**
+     * Upload-only: the image column is written and streamed through BookImageService
+     * so that loading a book never materializes the blob.
+     */
+    @Transient
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private byte[] bookImage;
 
     @Column(name = "image_content_type")
     private String bookImageContentType;
 
+    @JsonIgnore
+    @Column(name = "image_digest", length = 64, insertable = false, updatable = false)
+    private String bookImageDigest;
+
+    @JsonIgnore
+    @Column(name = "image_variants_digest", length = 64, insertable = false, updatable = false)
+    private String bookImageVariantsDigest;
+
+    /**
+     * Incremented by every update, it is the entity tag of the book. The
+     * default fills the column of the rows stored before it existed.
+     */
+    @JsonIgnore
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0 not null")
+    private long bookVersion;
+
+    @JsonIgnore
+    @Column(name = "last_modified")
+    private Date bookLastModified;
+
     @JsonIgnore
     @OneToMany(
             mappedBy = "book",
@@ -124,6 +163,32 @@ public class Book implements Serializable{
         this.bookImageContentType = bookImageContentType;
     }
 
+    public String getBookImageDigest() {
+        return bookImageDigest;
+    }
+
+    public String getBookImageVariantsDigest() {
+        return bookImageVariantsDigest;
+    }
+
+    public long getBookVersion() {
+        return bookVersion;
+    }
+
+    public void setBookVersion(long bookVersion) {
+        this.bookVersion = bookVersion;
+    }
+
+    public Date getBookLastModified() {
+        return bookLastModified;
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void touch() {
+        bookLastModified = new Date();
+    }
+
     public List<OrderBook> getOrders() {
         return orders;
     }
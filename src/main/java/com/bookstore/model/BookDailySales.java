@@ -0,0 +1,68 @@
+package com.bookstore.model;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Copies of a book sold on a day, rolled up from the orders so that rankings
+ * do not aggregate the order history. The rows are written through
+ * BookSalesRepository, the mapping defines the table; the index leads with the
+ * day so that a period is read as one range.
+ */
+@Entity
+@Table(name = "book_sales_daily", indexes = {
+        @Index(name = "idx_book_sales_daily_date", columnList = "sales_date,book_id,quantity")
+})
+public class BookDailySales implements Serializable {
+
+    @Id
+    @Temporal(TemporalType.DATE)
+    @Column(name = "sales_date")
+    private Date salesDate;
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "quantity", nullable = false)
+    private Long quantity;
+
+    public Date getSalesDate() {
+        return salesDate;
+    }
+
+    public void setSalesDate(Date salesDate) {
+        this.salesDate = salesDate;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(salesDate, bookId);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        BookDailySales that = (BookDailySales) obj;
+        return Objects.equals(salesDate, that.salesDate) && Objects.equals(bookId, that.bookId);
+    }
+}
@@ -0,0 +1,53 @@
+package com.bookstore.model;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Image column of the book table. Book leaves the column unmapped so that
+ * loading a book never materializes the blob; this mapping only defines the
+ * column. The image is written and streamed through BookImageRepository.
+ */
+@Entity
+@Table(name = "book")
+public class BookImage implements Serializable {
+
+    @Id
+    @Column(name = "id")
+    private Long bookId;
+
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "image")
+    private byte[] image;
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public byte[] getImage() {
+        return image;
+    }
+
+    public void setImage(byte[] image) {
+        this.image = image;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bookId);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        BookImage that = (BookImage) obj;
+        return Objects.equals(bookId, that.bookId);
+    }
+}
@@ -0,0 +1,120 @@
+package com.bookstore.model;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Downscaled copy of a book image. Rows are written and streamed through
+ * BookImageRepository; the mapping defines the table.
+ */
+@Entity
+@Table(name = "book_image_variant")
+public class BookImageVariant implements Serializable {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Id
+    @Column(name = "width")
+    private Integer width;
+
+    @Column(name = "height")
+    private Integer height;
+
+    @Column(name = "source_digest", length = 64)
+    private String sourceDigest;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "length")
+    private Long length;
+
+    @Column(name = "digest", length = 64)
+    private String digest;
+
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "data")
+    private byte[] data;
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public void setHeight(Integer height) {
+        this.height = height;
+    }
+
+    public String getSourceDigest() {
+        return sourceDigest;
+    }
+
+    public void setSourceDigest(String sourceDigest) {
+        this.sourceDigest = sourceDigest;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getLength() {
+        return length;
+    }
+
+    public void setLength(Long length) {
+        this.length = length;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    public void setDigest(String digest) {
+        this.digest = digest;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bookId, width);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        BookImageVariant that = (BookImageVariant) obj;
+        return Objects.equals(bookId, that.bookId) &&
+                Objects.equals(width, that.width);
+    }
+}
@@ -0,0 +1,52 @@
+package com.bookstore.model;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Copies of a book left for sale. Books without a row are not tracked and never
+ * run out. The row is kept apart from the book so that checkouts updating it
+ * do not contend with catalog reads and writes; it is written through
+ * BookStockRepository, the mapping defines the table.
+ */
+@Entity
+@Table(name = "book_stock")
+public class BookStock implements Serializable {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "quantity", nullable = false)
+    private Long quantity;
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bookId);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        BookStock that = (BookStock) obj;
+        return Objects.equals(bookId, that.bookId);
+    }
+}
@@ -1,6 +1,9 @@
 package com.bookstore.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -12,11 +15,20 @@ import java.util.List;
 import java.util.Objects;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_date_status", columnList = "date,status"),
+        @Index(name = "idx_orders_user_date", columnList = "user_id,date")
+})
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Order implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "order_id")
+    @GenericGenerator(name = "order_id", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+            @Parameter(name = "segment_value", value = "orders"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     @Column(name = "id")
     private Long orderId;
 
@@ -50,15 +62,39 @@ public class Order implements Serializable {
     })
     private User user;
 
+    /**
+     * Handle given out when the order came through the ingestion queue, which
+     * makes replaying the queue after a crash idempotent.
+     */
+    @JsonIgnore
+    @Column(name = "ingestion_handle", length = 36, unique = true, updatable = false)
+    private String ingestionHandle;
+
+    /**
+     * Incremented by every update, it is the entity tag of the order with
+     * the versions of its books. The default fills the column of the rows
+     * stored before it existed.
+     */
+    @JsonIgnore
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0 not null")
+    private long orderVersion;
+
+    @JsonIgnore
+    @Column(name = "last_modified")
+    private Date orderLastModified;
+
+    /**
+     * Book.orders is the inverse side of the line and is left alone: initializing
+     * it would load every past line of the book.
+     */
     public void addBook(Book book) {
         OrderBook orderBook = new OrderBook(this, book);
         books.add(orderBook);
-        book.getOrders().add(orderBook);
     }
 
     public void removeBook(Book book) {
         OrderBook orderBook = new OrderBook(this, book);
-        book.getOrders().remove(orderBook);
         books.remove(orderBook);
         orderBook.setOrder(null);
         orderBook.setBook(null);
@@ -112,6 +148,32 @@ public class Order implements Serializable {
         this.user = user;
     }
 
+    public String getIngestionHandle() {
+        return ingestionHandle;
+    }
+
+    public void setIngestionHandle(String ingestionHandle) {
+        this.ingestionHandle = ingestionHandle;
+    }
+
+    public long getOrderVersion() {
+        return orderVersion;
+    }
+
+    public void setOrderVersion(long orderVersion) {
+        this.orderVersion = orderVersion;
+    }
+
+    public Date getOrderLastModified() {
+        return orderLastModified;
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void touch() {
+        orderLastModified = new Date();
+    }
+
     @Override
     public int hashCode() {
         return 31;
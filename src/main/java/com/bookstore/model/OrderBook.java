@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.util.Objects;
 
 @Entity
@@ -25,6 +26,12 @@ public class OrderBook implements Serializable{
     @NotNull
     private Long quantity;
 
+    /**
+     * Price of the book when the order was placed.
+     */
+    @Column(name = "unit_price", precision=10, scale=2)
+    private BigDecimal unitPrice;
+
     public OrderBook(Order order, Book book) {
         this.order = order;
         this.book = book;
@@ -57,6 +64,14 @@ public class OrderBook implements Serializable{
         this.quantity = quantity;
     }
 
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(order, book);
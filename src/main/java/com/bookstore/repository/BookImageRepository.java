@@ -0,0 +1,151 @@
+package com.bookstore.repository;
+
+import com.bookstore.model.BookImageVariant;
+import com.bookstore.service.dto.BookImageDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Blob;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC access to the image column of the book table and to the book_image_variant
+ * table. Image bytes are never mapped on entities, so they are only ever read in
+ * bounded chunks.
+ */
+@Repository
+public class BookImageRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean mySql;
+
+    @Autowired
+    public BookImageRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public BookImageDTO findImage(Long bookId) {
+        List<BookImageDTO> images = jdbcTemplate.query(
+                "select image_content_type, length(image), image_digest, image_variants_digest from book " +
+                        "where id = ? and image is not null",
+                (rs, rowNum) -> BookImageDTO.original(bookId, rs.getString(1), rs.getLong(2), rs.getString(3),
+                        rs.getString(3) != null && rs.getString(3).equals(rs.getString(4))),
+                bookId);
+        return images.isEmpty() ? null : images.get(0);
+    }
+
+    /**
+     * @return the variants generated from the image with the given digest, narrowest first
+     */
+    public List<BookImageDTO> findVariants(Long bookId, String sourceDigest) {
+        return jdbcTemplate.query(
+                "select width, content_type, length, digest from book_image_variant " +
+                        "where book_id = ? and source_digest = ? order by width",
+                (rs, rowNum) -> BookImageDTO.variant(bookId, rs.getInt(1), rs.getString(2), rs.getLong(3),
+                        rs.getString(4)),
+                bookId, sourceDigest);
+    }
+
+    /**
+     * Reads part of an image or variant, provided it still has the expected digest.
+     *
+     * @param image the image to read
+     * @param offset the zero-based offset of the first byte
+     * @param length the number of bytes to read
+     * @return the bytes, or null if the image was replaced or removed meanwhile
+     */
+    public byte[] readChunk(BookImageDTO image, long offset, int length) {
+        if (image.isVariant()) {
+            return readChunk("data", "book_image_variant where book_id = ? and width = ? and digest = ?",
+                    offset, length, image.getBookId(), image.getWidth(), image.getDigest());
+        }
+        return readChunk("image", "book where id = ? and image_digest = ?",
+                offset, length, image.getBookId(), image.getDigest());
+    }
+
+    /**
+     * Reads part of an original image without checking its digest, used to compute a missing digest.
+     */
+    public byte[] readChunk(Long bookId, long offset, int length) {
+        return readChunk("image", "book where id = ?", offset, length, bookId);
+    }
+
+    /**
+     * MySQL cuts the chunk out on the server. Other databases, such as the H2
+     * used by the tests, hand out blobs as locators that are read from instead,
+     * since their substring does not work on binary values.
+     */
+    private byte[] readChunk(String column, String from, long offset, int length, Object... args) {
+        List<byte[]> chunks;
+        if (isMySql()) {
+            Object[] chunkArgs = new Object[args.length + 2];
+            chunkArgs[0] = offset + 1;
+            chunkArgs[1] = length;
+            System.arraycopy(args, 0, chunkArgs, 2, args.length);
+            chunks = jdbcTemplate.query("select substring(" + column + ", ?, ?) from " + from,
+                    (rs, rowNum) -> rs.getBytes(1), chunkArgs);
+        } else {
+            chunks = jdbcTemplate.query("select " + column + " from " + from, (rs, rowNum) -> {
+                Blob blob = rs.getBlob(1);
+                if (blob == null) {
+                    return null;
+                }
+                long available = Math.max(0, blob.length() - offset);
+                return blob.getBytes(offset + 1, (int) Math.min(length, available));
+            }, args);
+        }
+        return chunks.isEmpty() ? null : chunks.get(0);
+    }
+
+    private boolean isMySql() {
+        if (mySql == null) {
+            mySql = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "MySQL".equals(connection.getMetaData().getDatabaseProductName()));
+        }
+        return mySql;
+    }
+
+    public void updateImage(Long bookId, byte[] image, String digest) {
+        jdbcTemplate.update("update book set image = ?, image_digest = ? where id = ?", image, digest, bookId);
+    }
+
+    public void updateDigest(Long bookId, String digest) {
+        jdbcTemplate.update("update book set image_digest = ? where id = ?", digest, bookId);
+    }
+
+    /**
+     * Replaces the variants of a book, unless its image no longer has the digest
+     * the variants were generated from.
+     *
+     * @return true if the variants were stored
+     */
+    @Transactional
+    public boolean replaceVariants(Long bookId, String sourceDigest, List<BookImageVariant> variants) {
+        List<String> current = jdbcTemplate.queryForList(
+                "select image_digest from book where id = ? for update", String.class, bookId);
+        if (current.isEmpty() || !sourceDigest.equals(current.get(0))) {
+            return false;
+        }
+        jdbcTemplate.update("delete from book_image_variant where book_id = ?", bookId);
+        jdbcTemplate.batchUpdate(
+                "insert into book_image_variant " +
+                        "(book_id, width, height, source_digest, content_type, length, digest, data) " +
+                        "values (?, ?, ?, ?, ?, ?, ?, ?)",
+                variants.stream()
+                        .map(variant -> new Object[]{
+                                bookId, variant.getWidth(), variant.getHeight(), sourceDigest,
+                                variant.getContentType(), variant.getLength(), variant.getDigest(), variant.getData()})
+                        .collect(Collectors.toList()));
+        jdbcTemplate.update("update book set image_variants_digest = ? where id = ?", sourceDigest, bookId);
+        return true;
+    }
+
+    public void deleteVariants(Long bookId) {
+        jdbcTemplate.update("delete from book_image_variant where book_id = ?", bookId);
+    }
+}
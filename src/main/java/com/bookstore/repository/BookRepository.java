@@ -1,7 +1,77 @@
 package com.bookstore.repository;
 
 import com.bookstore.model.Book;
+import com.bookstore.service.dto.BookPriceDTO;
+import com.bookstore.service.dto.BookSalesDTO;
+import com.bookstore.service.dto.BookSummaryDTO;
+import com.bookstore.service.dto.BookTextDTO;
+import com.bookstore.service.dto.VersionDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 
 public interface BookRepository extends JpaRepository<Book, Long>{
+
+    String SUMMARY_SELECT = "select new com.bookstore.service.dto.BookSummaryDTO(" +
+            "b.bookId, b.bookTitle, b.bookAuthor, b.bookPages, b.bookIsbn, b.bookPrice, b.bookVersion) from Book b ";
+
+    @Query(SUMMARY_SELECT +
+            "where b.bookId > :afterId " +
+            "order by b.bookId")
+    List<BookSummaryDTO> findSummariesAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Books ordered by title then id, starting after the given position. A null
+     * title positions the cursor inside the leading block of untitled books.
+     */
+    @Query(SUMMARY_SELECT +
+            "where (:title is null and (b.bookTitle is not null or b.bookId > :afterId)) " +
+            "or b.bookTitle > :title " +
+            "or (b.bookTitle = :title and b.bookId > :afterId) " +
+            "order by b.bookTitle, b.bookId")
+    List<BookSummaryDTO> findSummariesAfterTitle(@Param("title") String title,
+                                                 @Param("afterId") Long afterId,
+                                                 Pageable pageable);
+
+    /**
+     * Books ordered by price then id, starting after the given position. A null
+     * price positions the cursor inside the leading block of unpriced books.
+     */
+    @Query(SUMMARY_SELECT +
+            "where (:price is null and (b.bookPrice is not null or b.bookId > :afterId)) " +
+            "or b.bookPrice > :price " +
+            "or (b.bookPrice = :price and b.bookId > :afterId) " +
+            "order by b.bookPrice, b.bookId")
+    List<BookSummaryDTO> findSummariesAfterPrice(@Param("price") BigDecimal price,
+                                                 @Param("afterId") Long afterId,
+                                                 Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where b.bookId in :bookIds")
+    List<BookSummaryDTO> findSummariesByBookIdIn(@Param("bookIds") Collection<Long> bookIds);
+
+    @Query("select new com.bookstore.service.dto.BookTextDTO(" +
+            "b.bookId, b.bookTitle, b.bookAuthor, b.bookIsbn, b.bookDescription) from Book b " +
+            "where b.bookId > :afterId " +
+            "order by b.bookId")
+    List<BookTextDTO> findTextsAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select new com.bookstore.service.dto.BookSalesDTO(ob.book.bookId, sum(ob.quantity)) " +
+            "from OrderBook ob group by ob.book.bookId")
+    List<BookSalesDTO> findSales();
+
+    @Query("select b from Book b where b.bookIsbn in :isbns order by b.bookId")
+    List<Book> findByBookIsbnIn(@Param("isbns") Collection<String> isbns);
+
+    @Query("select new com.bookstore.service.dto.VersionDTO(b.bookVersion, b.bookLastModified) " +
+            "from Book b where b.bookId = :bookId")
+    VersionDTO findVersionByBookId(@Param("bookId") Long bookId);
+
+    @Query("select new com.bookstore.service.dto.BookPriceDTO(b.bookId, b.bookPrice) " +
+            "from Book b where b.bookId in :bookIds")
+    List<BookPriceDTO> findPricesByBookIdIn(@Param("bookIds") Collection<Long> bookIds);
 }
@@ -0,0 +1,88 @@
+package com.bookstore.repository;
+
+import com.bookstore.service.dto.BestsellerDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * JDBC access to the book_sales_daily table, which holds the copies sold of
+ * every book by day.
+ */
+@Repository
+public class BookSalesRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public BookSalesRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList("select 1 from book_sales_daily limit 1").isEmpty();
+    }
+
+    /**
+     * Rolls up the whole order history, once, into an empty table.
+     *
+     * @return the number of rows written
+     */
+    public int rollUpOrders() {
+        return jdbcTemplate.update("insert into book_sales_daily (sales_date, book_id, quantity) " +
+                "select cast(o.date as date), ob.book_id, sum(ob.quantity) " +
+                "from orders o join order_book ob on ob.order_id = o.id " +
+                "group by cast(o.date as date), ob.book_id");
+    }
+
+    /**
+     * Adds copies, or takes them back if negative, to the sales of the day with
+     * one batch of updates and one of inserts for the books without a row yet.
+     */
+    @Transactional
+    public void add(LocalDate day, Map<Long, Long> quantities) {
+        Date salesDate = Date.valueOf(day);
+        // rows are locked in book order, so that concurrent flushes cannot deadlock
+        List<Object[]> updates = new ArrayList<>();
+        for (Map.Entry<Long, Long> entry : new TreeMap<>(quantities).entrySet()) {
+            updates.add(new Object[]{entry.getValue(), salesDate, entry.getKey()});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(
+                "update book_sales_daily set quantity = quantity + ? where sales_date = ? and book_id = ?", updates);
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                Object[] update = updates.get(i);
+                inserts.add(new Object[]{salesDate, update[2], update[0]});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "insert into book_sales_daily (sales_date, book_id, quantity) values (?, ?, ?)", inserts);
+        }
+    }
+
+    /**
+     * The books that sold the most copies from the first to the last day, both
+     * included, reading only the rows of those days. Deleted books are left out.
+     */
+    public List<BestsellerDTO> findBestsellers(LocalDate firstDay, LocalDate lastDay, int size) {
+        return jdbcTemplate.query("select s.book_id, b.title, b.author, sum(s.quantity) as sold " +
+                        "from book_sales_daily s join book b on b.id = s.book_id " +
+                        "where s.sales_date between ? and ? " +
+                        "group by s.book_id, b.title, b.author " +
+                        "having sum(s.quantity) > 0 " +
+                        "order by sold desc, s.book_id " +
+                        "limit ?",
+                (rs, rowNum) -> new BestsellerDTO(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getLong(4)),
+                Date.valueOf(firstDay), Date.valueOf(lastDay), size);
+    }
+}
@@ -0,0 +1,61 @@
+package com.bookstore.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * JDBC access to the book_stock table. Stock only changes through single
+ * statements that check and update it at once, so that no row is locked
+ * longer than one statement of the caller's transaction.
+ */
+@Repository
+public class BookStockRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public BookStockRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the copies left, or null if the stock of the book is not tracked
+     */
+    public Long findQuantity(Long bookId) {
+        List<Long> quantities = jdbcTemplate.queryForList(
+                "select quantity from book_stock where book_id = ?", Long.class, bookId);
+        return quantities.isEmpty() ? null : quantities.get(0);
+    }
+
+    /**
+     * Takes copies from the stock if enough are left.
+     *
+     * @return false if the stock is not tracked or has fewer copies
+     */
+    public boolean take(Long bookId, long quantity) {
+        return jdbcTemplate.update("update book_stock set quantity = quantity - ? where book_id = ? and quantity >= ?",
+                quantity, bookId, quantity) == 1;
+    }
+
+    /**
+     * Gives copies back to a tracked stock.
+     */
+    public void give(Long bookId, long quantity) {
+        jdbcTemplate.update("update book_stock set quantity = quantity + ? where book_id = ?", quantity, bookId);
+    }
+
+    @Transactional
+    public void updateQuantity(Long bookId, long quantity) {
+        if (jdbcTemplate.update("update book_stock set quantity = ? where book_id = ?", quantity, bookId) == 0) {
+            jdbcTemplate.update("insert into book_stock (book_id, quantity) values (?, ?)", bookId, quantity);
+        }
+    }
+
+    public void delete(Long bookId) {
+        jdbcTemplate.update("delete from book_stock where book_id = ?", bookId);
+    }
+}
@@ -0,0 +1,202 @@
+package com.bookstore.repository;
+
+import com.bookstore.service.dto.QueuedOrderDTO;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only file of orders waiting to be written to the database, one JSON
+ * document per line. The offset of the first order not yet written is kept in
+ * a checkpoint file next to it, so that a restart resumes where the writer
+ * stopped. Orders right after the checkpoint may have been written already
+ * when the process died; the writer must tolerate replays.
+ * <p>
+ * Appends are forced to disk before they return. The file is truncated once
+ * everything in it has been written.
+ */
+public class OrderJournal implements Closeable {
+
+    private static final String JOURNAL_FILE = "orders.journal";
+
+    private static final String CHECKPOINT_FILE = "orders.checkpoint";
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private static final ObjectWriter WRITER = OBJECT_MAPPER.writerFor(QueuedOrderDTO.class);
+
+    private static final ObjectReader READER = OBJECT_MAPPER.readerFor(QueuedOrderDTO.class);
+
+    private final Path checkpointPath;
+
+    private final FileChannel channel;
+
+    private long checkpoint;
+
+    public OrderJournal(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.checkpointPath = directory.resolve(CHECKPOINT_FILE);
+        this.channel = FileChannel.open(directory.resolve(JOURNAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        truncateTornTail();
+        if (Files.exists(checkpointPath)) {
+            String value = new String(Files.readAllBytes(checkpointPath), StandardCharsets.US_ASCII).trim();
+            checkpoint = value.isEmpty() ? 0 : Long.parseLong(value);
+        }
+        // the journal was truncated but the process died before the checkpoint was reset
+        if (checkpoint > channel.size()) {
+            checkpoint = 0;
+        }
+    }
+
+    /**
+     * Appends the order and forces it to disk.
+     */
+    public synchronized void append(QueuedOrderDTO order) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        WRITER.writeValue(line, order);
+        line.write('\n');
+        ByteBuffer buffer = ByteBuffer.wrap(line.toByteArray());
+        long position = channel.size();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Reads up to max orders starting at the given offset, which must be the
+     * checkpoint or the end offset of a previous read.
+     */
+    public Batch read(long offset, int max) throws IOException {
+        List<QueuedOrderDTO> orders = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        long position = offset;
+        long end = offset;
+        while (orders.size() < max) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining() && orders.size() < max) {
+                byte b = buffer.get();
+                position++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                orders.add(READER.readValue(line.toByteArray()));
+                line.reset();
+                end = position;
+            }
+        }
+        return new Batch(orders, end);
+    }
+
+    /**
+     * Marks everything before the offset as written to the database.
+     */
+    public synchronized void commit(long offset) throws IOException {
+        if (offset == channel.size()) {
+            channel.truncate(0);
+            channel.force(true);
+            offset = 0;
+        }
+        writeCheckpoint(offset);
+        checkpoint = offset;
+    }
+
+    public synchronized long getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Bytes appended and not yet committed.
+     */
+    public synchronized long pendingBytes() throws IOException {
+        return channel.size() - checkpoint;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void writeCheckpoint(long offset) throws IOException {
+        Path temporary = checkpointPath.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        Files.write(temporary, Long.toString(offset).getBytes(StandardCharsets.US_ASCII),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        Files.move(temporary, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Drops a last line left incomplete by a crash during an append; its
+     * order was never acknowledged.
+     */
+    private void truncateTornTail() throws IOException {
+        long size = channel.size();
+        ByteBuffer single = ByteBuffer.allocate(1);
+        long end = size;
+        while (end > 0) {
+            single.clear();
+            channel.read(single, end - 1);
+            if (single.get(0) == '\n') {
+                break;
+            }
+            end--;
+        }
+        if (end < size) {
+            channel.truncate(end);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Orders read from the journal and the offset right after the last of them.
+     */
+    public static class Batch {
+
+        private final List<QueuedOrderDTO> orders;
+
+        private final long endOffset;
+
+        Batch(List<QueuedOrderDTO> orders, long endOffset) {
+            this.orders = Collections.unmodifiableList(orders);
+            this.endOffset = endOffset;
+        }
+
+        public List<QueuedOrderDTO> getOrders() {
+            return orders;
+        }
+
+        public long getEndOffset() {
+            return endOffset;
+        }
+
+        public boolean isEmpty() {
+            return orders.isEmpty();
+        }
+    }
+}
@@ -1,12 +1,65 @@
 package com.bookstore.repository;
 
 import com.bookstore.model.Order;
-import com.bookstore.model.User;
+import com.bookstore.service.dto.OrderDTO;
+import com.bookstore.service.dto.OrderIngestionStatusDTO;
+import com.bookstore.service.dto.OrderLineDTO;
+import com.bookstore.service.dto.VersionDTO;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface OrderRepository extends JpaRepository<Order, Long>{
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
 
-    List<Order> findByUser(User user);
+    String ORDER_SELECT = "select new com.bookstore.service.dto.OrderDTO(" +
+            "o.orderId, o.orderDate, o.orderStatus, o.orderPrice, u.userId, u.userName) " +
+            "from Order o left join o.user u ";
+
+    @Query(ORDER_SELECT + "order by o.orderId")
+    List<OrderDTO> findAllSummaries();
+
+    @Query(ORDER_SELECT + "where u.userName = :userName order by o.orderId")
+    List<OrderDTO> findSummariesByUserName(@Param("userName") String userName);
+
+    @Query(ORDER_SELECT + "where o.user.userId = :userId order by o.orderId")
+    List<OrderDTO> findSummariesByUserId(@Param("userId") Long userId);
+
+    /**
+     * Lines of the given orders with the titles of their books, in a single statement.
+     */
+    @Query("select new com.bookstore.service.dto.OrderLineDTO(" +
+            "ob.order.orderId, b.bookId, b.bookTitle, ob.quantity, ob.unitPrice) " +
+            "from OrderBook ob join ob.book b " +
+            "where ob.order.orderId in :orderIds")
+    List<OrderLineDTO> findLinesByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Validators of the order with its user, lines and their books, without loading them.
+     */
+    @Query("select new com.bookstore.service.dto.VersionDTO(" +
+            "o.orderVersion, o.orderLastModified, u.userName, count(b), sum(b.bookVersion), max(b.bookLastModified)) " +
+            "from Order o left join o.user u left join o.books ob left join ob.book b " +
+            "where o.orderId = :orderId " +
+            "group by o.orderId, o.orderVersion, o.orderLastModified, u.userName")
+    VersionDTO findVersionByOrderId(@Param("orderId") Long orderId);
+
+    /**
+     * The order with its user, lines and their books, in a single statement.
+     */
+    @Query("select distinct o from Order o " +
+            "left join fetch o.user " +
+            "left join fetch o.books ob " +
+            "left join fetch ob.book " +
+            "where o.orderId = :orderId")
+    Order findOneWithBooksByOrderId(@Param("orderId") Long orderId);
+
+    /**
+     * Orders already written for the given ingestion handles.
+     */
+    @Query("select new com.bookstore.service.dto.OrderIngestionStatusDTO(o.ingestionHandle, o.orderId) " +
+            "from Order o where o.ingestionHandle in :handles")
+    List<OrderIngestionStatusDTO> findIngestionStatusesByHandleIn(@Param("handles") Collection<String> handles);
 }
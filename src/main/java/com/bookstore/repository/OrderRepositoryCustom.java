@@ -0,0 +1,32 @@
+package com.bookstore.repository;
+
+import com.bookstore.service.dto.OrderCursor;
+import com.bookstore.service.dto.OrderDTO;
+import com.bookstore.service.dto.OrderExportRowDTO;
+import com.bookstore.service.dto.OrderSearchCriteria;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+
+    /**
+     * Orders matching the criteria, most recent first, without their lines.
+     *
+     * @param criteria the filters
+     * @param after the position to resume from, null for the first page
+     * @param limit the maximum number of orders
+     */
+    List<OrderDTO> search(OrderSearchCriteria criteria, OrderCursor after, int limit);
+
+    /**
+     * Hands every order line, flattened, to the handler in order id order,
+     * reading them from a forward-only cursor as the handler consumes them.
+     */
+    void exportRows(ExportRowHandler handler) throws IOException;
+
+    interface ExportRowHandler {
+
+        void handle(OrderExportRowDTO row) throws IOException;
+    }
+}
@@ -0,0 +1,115 @@
+package com.bookstore.repository;
+
+import com.bookstore.service.dto.OrderCursor;
+import com.bookstore.service.dto.OrderDTO;
+import com.bookstore.service.dto.OrderExportRowDTO;
+import com.bookstore.service.dto.OrderSearchCriteria;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the search query from the criteria actually given, so that MySQL can
+ * pick the orders(date, status) or orders(user_id, date) index for it, and
+ * streams the export.
+ */
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    /**
+     * Ordered by the orders alone, so that MySQL reads them along their primary
+     * key and joins the lines without sorting the result.
+     */
+    private static final String EXPORT_SELECT = "select new com.bookstore.service.dto.OrderExportRowDTO(" +
+            "o.orderId, o.orderDate, o.orderStatus, o.orderPrice, u.userId, u.userName, " +
+            "b.bookId, b.bookTitle, ob.quantity, ob.unitPrice) " +
+            "from Order o left join o.user u left join o.books ob left join ob.book b " +
+            "order by o.orderId";
+
+    /**
+     * Rows fetched per round trip by drivers that do not stream.
+     */
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrderDTO> search(OrderSearchCriteria criteria, OrderCursor after, int limit) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (criteria.getFrom() != null) {
+            conditions.add("o.orderDate >= :from");
+            parameters.put("from", criteria.getFrom());
+        }
+        if (criteria.getTo() != null) {
+            conditions.add("o.orderDate < :to");
+            parameters.put("to", criteria.getTo());
+        }
+        if (criteria.getStatus() != null) {
+            conditions.add("o.orderStatus = :status");
+            parameters.put("status", criteria.getStatus());
+        }
+        if (criteria.getUserId() != null) {
+            conditions.add("o.user.userId = :userId");
+            parameters.put("userId", criteria.getUserId());
+        }
+        if (criteria.getMinPrice() != null) {
+            conditions.add("o.orderPrice >= :minPrice");
+            parameters.put("minPrice", criteria.getMinPrice());
+        }
+        if (after != null) {
+            conditions.add("(o.orderDate < :afterDate or (o.orderDate = :afterDate and o.orderId < :afterId))");
+            parameters.put("afterDate", after.getDate());
+            parameters.put("afterId", after.getId());
+        }
+
+        StringBuilder jpql = new StringBuilder(OrderRepository.ORDER_SELECT);
+        if (!conditions.isEmpty()) {
+            jpql.append("where ").append(String.join(" and ", conditions));
+        }
+        jpql.append(" order by o.orderDate desc, o.orderId desc");
+
+        TypedQuery<OrderDTO> query = entityManager.createQuery(jpql.toString(), OrderDTO.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Rows are projected into DTOs, so nothing enters the persistence context
+     * and memory stays flat however many rows are read.
+     */
+    @Override
+    public void exportRows(ExportRowHandler handler) throws IOException {
+        Session session = entityManager.unwrap(Session.class);
+        ScrollableResults rows = session.createQuery(EXPORT_SELECT)
+                .setReadOnly(true)
+                .setFetchSize(streamingFetchSize(session))
+                .scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            while (rows.next()) {
+                handler.handle((OrderExportRowDTO) rows.get(0));
+            }
+        } finally {
+            rows.close();
+        }
+    }
+
+    /**
+     * Connector/J reads the whole result set into memory unless the fetch size
+     * is Integer.MIN_VALUE, which it takes as streaming row by row; other
+     * drivers reject that value and page with a regular fetch size.
+     */
+    private static int streamingFetchSize(Session session) {
+        String product = session.doReturningWork(connection -> connection.getMetaData().getDatabaseProductName());
+        return "MySQL".equals(product) ? Integer.MIN_VALUE : EXPORT_FETCH_SIZE;
+    }
+}
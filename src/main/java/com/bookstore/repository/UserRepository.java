@@ -3,7 +3,13 @@ package com.bookstore.repository;
 import com.bookstore.model.User;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -13,4 +19,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @EntityGraph(attributePaths = "authorities")
     User findOneWithAuthoritiesByUserName(String userName);
 
+    @EntityGraph(attributePaths = "authorities")
+    User findOneWithAuthoritiesByUserId(Long userId);
+
+    @EntityGraph(attributePaths = "authorities")
+    @Query("select distinct u from User u")
+    List<User> findAllWithAuthorities();
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.userPassword = :passwordHash where u.userName = :userName")
+    int updatePasswordHash(@Param("userName") String userName, @Param("passwordHash") String passwordHash);
+
 }
@@ -1,6 +1,8 @@
 package com.bookstore.resource;
 
 import com.bookstore.model.User;
+import com.bookstore.resource.util.RejectionUtil;
+import com.bookstore.security.LoginRejectedException;
 import com.bookstore.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -27,16 +29,20 @@ public class AccountResource {
      *
      * @param user the user to register
      * @return the ResponseEntity with status 201 (Created) and with body the message,
-     * or with status 400 (Bad Request) if the username already exists
+     * or with status 400 (Bad Request) if the username already exists,
+     * or with status 429 (Too Many Requests) if too many passwords are being hashed
      */
     @PostMapping("/register")
     public ResponseEntity<String> createUser(@RequestBody User user) {
         if (userService.findByUserName(user.getUserName()) != null) {
             return new ResponseEntity<>("usernameExists", HttpStatus.BAD_REQUEST);
-        } else {
+        }
+        try {
             userService.createUser(user);
-            return new ResponseEntity<>("User created successfully",HttpStatus.CREATED);
+        } catch (LoginRejectedException e) {
+            return RejectionUtil.rejected(e);
         }
+        return new ResponseEntity<>("User created successfully",HttpStatus.CREATED);
     }
 
     /**
@@ -0,0 +1,120 @@
+package com.bookstore.resource;
+
+import com.bookstore.resource.util.ETagUtil;
+import com.bookstore.service.BookImageService;
+import com.bookstore.service.dto.BookImageDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+/**
+ * REST controller for streaming book images.
+ */
+@RestController
+public class BookImageResource {
+
+    private static final String CACHE_CONTROL = "public, max-age=3600";
+
+    private final BookImageService bookImageService;
+
+    @Autowired
+    public BookImageResource(BookImageService bookImageService) {
+        this.bookImageService = bookImageService;
+    }
+
+    /**
+     * GET /books/:id/image : stream the image of the "id" book.
+     *
+     * @param id the id of the book
+     * @param width the width the image will be displayed at; the narrowest stored variant
+     *              at least as wide is served, or the original when there is none
+     * @param ifNoneMatch the entity tags held by the client
+     * @param range the requested byte range, only single ranges are honoured
+     * @param ifRange the entity tag the range is conditional on
+     * @return the ResponseEntity with status 200 (OK) and the image in body,
+     * or with status 206 (Partial Content) and the requested range in body,
+     * or with status 304 (Not Modified) if the client already has the image,
+     * or with status 404 (NOT FOUND) if the book has no image,
+     * or with status 416 (Requested Range Not Satisfiable)
+     */
+    @GetMapping("/books/{id}/image")
+    public ResponseEntity<StreamingResponseBody> getBookImage(
+            @PathVariable Long id,
+            @RequestParam(required = false) Integer width,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
+
+        BookImageDTO image = bookImageService.findImage(id, width);
+        if (image == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        String etag = ETagUtil.strong(image.getDigest());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setCacheControl(CACHE_CONTROL);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (ETagUtil.matches(ifNoneMatch, etag)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        headers.setContentType(contentType(image));
+
+        long length = image.getLength();
+        HttpRange byteRange = singleRange(range);
+        if (byteRange != null && (ifRange == null || ifRange.equals(etag))) {
+            long start = byteRange.getRangeStart(length);
+            long end = byteRange.getRangeEnd(length);
+            if (start >= length || start > end) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return new ResponseEntity<>(headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            }
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            headers.setContentLength(end - start + 1);
+            return new ResponseEntity<>(
+                    out -> bookImageService.writeImage(image, start, end - start + 1, out),
+                    headers, HttpStatus.PARTIAL_CONTENT);
+        }
+
+        headers.setContentLength(length);
+        return new ResponseEntity<>(out -> bookImageService.writeImage(image, 0, length, out), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Syntactically invalid and multi-range requests are answered with the full image.
+     */
+    private static HttpRange singleRange(String range) {
+        if (range == null) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(range);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static MediaType contentType(BookImageDTO image) {
+        if (image.getContentType() != null) {
+            try {
+                return MediaType.parseMediaType(image.getContentType());
+            } catch (InvalidMediaTypeException e) {
+                // fall through to the generic type
+            }
+        }
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+}
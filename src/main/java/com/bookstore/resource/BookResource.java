@@ -1,14 +1,45 @@
 package com.bookstore.resource;
 
 import com.bookstore.model.Book;
+import com.bookstore.resource.util.ETagUtil;
+import com.bookstore.resource.util.PaginationUtil;
 import com.bookstore.security.SecurityConstants;
+import com.bookstore.service.BookImportService;
+import com.bookstore.service.BookSalesService;
+import com.bookstore.service.BookSearchService;
 import com.bookstore.service.BookService;
+import com.bookstore.service.BookSuggestionService;
+import com.bookstore.service.InventoryService;
+import com.bookstore.service.dto.BestsellerDTO;
+import com.bookstore.service.dto.BookImportReportDTO;
+import com.bookstore.service.dto.BookSort;
+import com.bookstore.service.dto.BookStockDTO;
+import com.bookstore.service.dto.BookSuggestionDTO;
+import com.bookstore.service.dto.BookSummaryDTO;
+import com.bookstore.service.dto.CursorPage;
+import com.bookstore.service.dto.FeedFormat;
+import com.bookstore.service.dto.KeysetCursor;
+import com.bookstore.service.dto.SalesPeriod;
+import com.bookstore.service.dto.SearchCursor;
+import com.bookstore.service.dto.VersionDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -17,11 +48,33 @@ import java.util.List;
 @RestController
 public class BookResource {
 
+    /**
+     * Clients may keep the representations but revalidate them on every use.
+     */
+    private static final String CACHE_CONTROL = "no-cache";
+
     private BookService bookService;
 
+    private BookSearchService bookSearchService;
+
+    private BookSuggestionService bookSuggestionService;
+
+    private InventoryService inventoryService;
+
+    private BookSalesService bookSalesService;
+
+    private BookImportService bookImportService;
+
     @Autowired
-    public BookResource(BookService bookService) {
+    public BookResource(BookService bookService, BookSearchService bookSearchService,
+                        BookSuggestionService bookSuggestionService, InventoryService inventoryService,
+                        BookSalesService bookSalesService, BookImportService bookImportService) {
         this.bookService = bookService;
+        this.bookSearchService = bookSearchService;
+        this.bookSuggestionService = bookSuggestionService;
+        this.inventoryService = inventoryService;
+        this.bookSalesService = bookSalesService;
+        this.bookImportService = bookImportService;
     }
 
     /**
@@ -46,7 +99,8 @@ public class BookResource {
      *
      * @param book the book to update
      * @return the ResponseEntity with state 200 (OK) and with body the updated book,
-     * or with status 400 (Bad Request) if the book is not valid
+     * or with status 400 (Bad Request) if the book is not valid,
+     * or with status 409 (Conflict) if the book was updated concurrently
      */
     @PutMapping("/books")
     @Secured(SecurityConstants.ADMIN)
@@ -54,39 +108,245 @@ public class BookResource {
         if (book.getBookId() == null) {
             return createBook(book);
         }
-        Book resultBook = bookService.updateBook(book);
+        Book resultBook;
+        try {
+            resultBook = bookService.updateBook(book);
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
         return new ResponseEntity<>(resultBook, HttpStatus.OK);
     }
 
     /**
-     * GET /books : get all the books.
+     * POST /books/import : Create or update books in bulk from a feed, matching them by ISBN.
+     * The body is streamed, as CSV with a header row or as one JSON book per line.
+     *
+     * @param contentType text/csv or application/x-ndjson, UTF-8 unless a charset is given
+     * @param feed the body of the request
+     * @return the ResponseEntity with status 200 (OK) and with body the report of the import,
+     * listing the rows that were not stored, or with status 400 (Bad Request) if the CSV header is not valid
+     */
+    @PostMapping(value = "/books/import", consumes = {"text/csv", "application/x-ndjson"})
+    @Secured(SecurityConstants.ADMIN)
+    public ResponseEntity<BookImportReportDTO> importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                           InputStream feed) throws IOException {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        Charset charset = mediaType.getCharset() != null ? mediaType.getCharset() : StandardCharsets.UTF_8;
+        BookImportReportDTO report;
+        try {
+            report = bookImportService.importBooks(new BufferedReader(new InputStreamReader(feed, charset)),
+                    FeedFormat.fromMediaType(mediaType));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(report, HttpStatus.OK);
+    }
+
+    /**
+     * GET /books : get a page of book summaries.
      *
-     * @return the ResponseEntity with status 200 (OK) and the list ob books in body,
-     * or with status 204 (NO CONTENT) if there no books in repository
+     * @param cursor the cursor of the page to retrieve, taken from the X-Next-Cursor header of the previous page
+     * @param size the page size, bounded to PaginationUtil.MAX_PAGE_SIZE
+     * @param sort the sort key: id, title or price
+     * @param requestHeaders the headers of the request, If-None-Match is evaluated against the entity tag of the page
+     * @return the ResponseEntity with status 200 (OK) and the list of book summaries in body,
+     * or with status 204 (NO CONTENT) if there are no more books,
+     * or with status 304 (Not Modified) if the client already has the page,
+     * or with status 400 (Bad Request) if the sort or the cursor is not valid
      */
     @GetMapping("/books")
-    public ResponseEntity<List<Book>> getAllBooks(){
-        List<Book> books = bookService.findAllBooks();
-        if (books.isEmpty()) {
+    public ResponseEntity<List<BookSummaryDTO>> getAllBooks(@RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer size,
+                                                            @RequestParam(defaultValue = "id") String sort,
+                                                            @RequestHeader HttpHeaders requestHeaders) {
+        BookSort bookSort = BookSort.fromParameter(sort);
+        if (bookSort == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        KeysetCursor keysetCursor = null;
+        if (cursor != null) {
+            keysetCursor = KeysetCursor.decode(cursor, bookSort);
+            if (keysetCursor == null) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        CursorPage<BookSummaryDTO> page = bookService.findBookPage(bookSort, keysetCursor, PaginationUtil.pageSize(size));
+        if (page.getContent().isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         }
-        return new ResponseEntity<>(books, HttpStatus.OK);
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(page);
+        String etag = ETagUtil.strong(pageVersion(page));
+        headers.setETag(etag);
+        headers.setCacheControl(CACHE_CONTROL);
+        if (ETagUtil.notModified(requestHeaders, etag, null)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * A page changes with the books it lists, their versions and the cursor that
+     * follows it. It has no Last-Modified, which a book deleted from it would not move.
+     */
+    private static String pageVersion(CursorPage<BookSummaryDTO> page) {
+        StringBuilder versions = new StringBuilder();
+        for (BookSummaryDTO book : page.getContent()) {
+            versions.append(book.getBookId()).append(':').append(book.getBookVersion()).append(',');
+        }
+        versions.append(page.getNextCursor());
+        return DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * GET /books/search : search the books by title, author, ISBN and description.
+     *
+     * @param q the words to search for, the last one also matching as a prefix
+     * @param cursor the cursor of the page to retrieve, taken from the X-Next-Cursor header of the previous page
+     * @param size the page size, bounded to PaginationUtil.MAX_PAGE_SIZE
+     * @return the ResponseEntity with status 200 (OK) and the list of book summaries in body, best matches first,
+     * or with status 204 (NO CONTENT) if there are no more matching books,
+     * or with status 400 (Bad Request) if the query is blank or the cursor is not valid
+     */
+    @GetMapping("/books/search")
+    public ResponseEntity<List<BookSummaryDTO>> searchBooks(@RequestParam String q,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer size) {
+        if (q.trim().isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        SearchCursor searchCursor = null;
+        if (cursor != null) {
+            searchCursor = SearchCursor.decode(cursor);
+            if (searchCursor == null) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        CursorPage<BookSummaryDTO> page = bookSearchService.search(q, searchCursor, PaginationUtil.pageSize(size));
+        if (page.getContent().isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(page);
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET /books/suggest : get the titles and authors completing what the user is typing.
+     *
+     * @param q the beginning of a title or author
+     * @param size the number of suggestions, bounded by bookstore.suggestion.max-suggestions
+     * @return the ResponseEntity with status 200 (OK) and the list of suggestions in body, best selling first,
+     * or with status 204 (NO CONTENT) if nothing starts with q,
+     * or with status 400 (Bad Request) if q is blank
+     */
+    @GetMapping("/books/suggest")
+    public ResponseEntity<List<BookSuggestionDTO>> suggestBooks(@RequestParam String q,
+                                                                @RequestParam(defaultValue = "10") int size) {
+        if (q.trim().isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        List<BookSuggestionDTO> suggestions = bookSuggestionService.suggest(q, size);
+        if (suggestions.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return new ResponseEntity<>(suggestions, HttpStatus.OK);
+    }
+
+    /**
+     * GET /books/bestsellers : get the books that sold the most copies over a day or a week.
+     *
+     * @param period day, or week for the seven days ending on the given date
+     * @param date the last day of the period, ISO formatted, today by default
+     * @param size the number of books, bounded by bookstore.sales.max-bestsellers
+     * @return the ResponseEntity with status 200 (OK) and the list of bestsellers in body, most copies first,
+     * or with status 204 (NO CONTENT) if no copies were sold,
+     * or with status 400 (Bad Request) if the period, the date or the size is not valid
+     */
+    @GetMapping("/books/bestsellers")
+    @Secured(SecurityConstants.ADMIN)
+    public ResponseEntity<List<BestsellerDTO>> getBestsellers(
+            @RequestParam(defaultValue = "day") String period,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "10") int size) {
+        SalesPeriod salesPeriod = SalesPeriod.fromParameter(period);
+        if (salesPeriod == null || size < 1) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        List<BestsellerDTO> bestsellers =
+                bookSalesService.findBestsellers(salesPeriod, date != null ? date : LocalDate.now(), size);
+        if (bestsellers.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return new ResponseEntity<>(bestsellers, HttpStatus.OK);
     }
 
     /**
      * GET /books/:id : get the "id" book.
      *
      * @param id the id of the book to retrieve
+     * @param requestHeaders the headers of the request, If-None-Match and If-Modified-Since are evaluated
+     *                       against the version of the book before it is loaded
      * @return the ResponseEntity with status 200 (OK) and with body the book,
+     * or with status 304 (Not Modified) if the client already has the book,
      * or with status 404 (NOT FOUND)
      */
     @GetMapping("/books/{id}")
-    public ResponseEntity<Book> getBook(@PathVariable Long id) {
+    public ResponseEntity<Book> getBook(@PathVariable Long id, @RequestHeader HttpHeaders requestHeaders) {
+        if (ETagUtil.isConditional(requestHeaders)) {
+            VersionDTO version = bookService.findBookVersion(id);
+            if (version == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            HttpHeaders headers = ETagUtil.validatorHeaders(version, CACHE_CONTROL);
+            if (ETagUtil.notModified(requestHeaders, headers.getETag(), version.getLastModified())) {
+                return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+            }
+        }
         Book book = bookService.findBookById(id);
         if (book == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        return new ResponseEntity<>(book, HttpStatus.OK);
+        HttpHeaders headers = ETagUtil.validatorHeaders(
+                new VersionDTO(book.getBookVersion(), book.getBookLastModified()), CACHE_CONTROL);
+        return new ResponseEntity<>(book, headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET /books/:id/stock : get the copies left of the "id" book.
+     *
+     * @param id the id of the book
+     * @return the ResponseEntity with status 200 (OK) and with body the stock, whose quantity is null
+     * if the stock of the book is not tracked, or with status 404 (NOT FOUND)
+     */
+    @GetMapping("/books/{id}/stock")
+    public ResponseEntity<BookStockDTO> getBookStock(@PathVariable Long id) {
+        if (bookService.findBookById(id) == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(new BookStockDTO(id, inventoryService.findStock(id)), HttpStatus.OK);
+    }
+
+    /**
+     * PUT /books/:id/stock : set the copies left of the "id" book.
+     *
+     * @param id the id of the book
+     * @param stock the stock, with a null quantity to stop tracking it
+     * @return the ResponseEntity with status 200 (OK) and with body the stock,
+     * or with status 400 (Bad Request) if the quantity is negative,
+     * or with status 404 (NOT FOUND)
+     */
+    @PutMapping("/books/{id}/stock")
+    @Secured(SecurityConstants.ADMIN)
+    public ResponseEntity<BookStockDTO> updateBookStock(@PathVariable Long id, @RequestBody BookStockDTO stock) {
+        if (stock.getQuantity() != null && stock.getQuantity() < 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (bookService.findBookById(id) == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        inventoryService.updateStock(id, stock.getQuantity());
+        return new ResponseEntity<>(new BookStockDTO(id, stock.getQuantity()), HttpStatus.OK);
     }
 
     /**
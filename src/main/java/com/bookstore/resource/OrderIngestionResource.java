@@ -0,0 +1,102 @@
+package com.bookstore.resource;
+
+import com.bookstore.model.Order;
+import com.bookstore.security.SecurityConstants;
+import com.bookstore.security.SecurityUtils;
+import com.bookstore.service.OrderIngestionService;
+import com.bookstore.service.UserService;
+import com.bookstore.service.dto.IngestionLagDTO;
+import com.bookstore.service.dto.OrderIngestionStatusDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.security.Principal;
+
+/**
+ * REST controller for queued order ingestion, enabled by bookstore.ingestion.enabled.
+ */
+@RestController
+@ConditionalOnProperty(prefix = "bookstore.ingestion", name = "enabled", havingValue = "true")
+public class OrderIngestionResource {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIngestionResource.class);
+
+    private final OrderIngestionService orderIngestionService;
+    private final UserService userService;
+
+    @Autowired
+    public OrderIngestionResource(OrderIngestionService orderIngestionService, UserService userService) {
+        this.orderIngestionService = orderIngestionService;
+        this.userService = userService;
+    }
+
+    /**
+     * POST /orders/ingestion : Queue a new order, priced and stored later.
+     *
+     * @param order the order to create
+     * @return the ResponseEntity with status 202 (Accepted), the location of the order status
+     * and with body the status, or with status 400 (Bad Request) if the order has already an ID
+     * or is not valid, or with status 503 (Service Unavailable) if the order could not be queued
+     */
+    @PostMapping("/orders/ingestion")
+    public ResponseEntity<OrderIngestionStatusDTO> queueOrder(@RequestBody Order order, Principal principal) {
+        if (order.getOrderId() != null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        Long userId = SecurityUtils.getUserId(principal);
+        if (userId == null) {
+            userId = userService.findByUserName(principal.getName()).getUserId();
+        }
+        String handle;
+        try {
+            handle = orderIngestionService.enqueueOrder(order, userId);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IOException e) {
+            log.error("Could not queue an order", e);
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setLocation(ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{handle}").buildAndExpand(handle).toUri());
+        return new ResponseEntity<>(OrderIngestionStatusDTO.queued(handle), headers, HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * GET /orders/ingestion/:handle : get the status of a queued order.
+     *
+     * @param handle the handle returned when the order was queued
+     * @return the ResponseEntity with status 200 (OK) and with body the status,
+     * or with status 404 (Not Found) if the handle is unknown
+     */
+    @GetMapping("/orders/ingestion/{handle}")
+    public ResponseEntity<OrderIngestionStatusDTO> getStatus(@PathVariable String handle) {
+        OrderIngestionStatusDTO status = orderIngestionService.findStatus(handle);
+        if (status == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(status, HttpStatus.OK);
+    }
+
+    /**
+     * GET /orders/ingestion : get how far the writer is behind the queue.
+     *
+     * @return the ResponseEntity with status 200 (OK) and with body the ingestion lag
+     */
+    @GetMapping("/orders/ingestion")
+    @Secured(SecurityConstants.ADMIN)
+    public ResponseEntity<IngestionLagDTO> getLag() throws IOException {
+        return new ResponseEntity<>(orderIngestionService.getLag(), HttpStatus.OK);
+    }
+}
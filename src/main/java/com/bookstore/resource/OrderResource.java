@@ -1,16 +1,37 @@
 package com.bookstore.resource;
 
 
+import com.bookstore.config.ReadYourWritesFilter;
 import com.bookstore.model.Order;
+import com.bookstore.model.OrderBook;
+import com.bookstore.model.User;
+import com.bookstore.resource.util.ETagUtil;
+import com.bookstore.resource.util.PaginationUtil;
 import com.bookstore.security.SecurityConstants;
+import com.bookstore.security.SecurityUtils;
+import com.bookstore.service.OrderExportService;
 import com.bookstore.service.OrderService;
+import com.bookstore.service.OutOfStockException;
 import com.bookstore.service.UserService;
+import com.bookstore.service.dto.CursorPage;
+import com.bookstore.service.dto.FeedFormat;
+import com.bookstore.service.dto.OrderCursor;
+import com.bookstore.service.dto.OrderDTO;
+import com.bookstore.service.dto.OrderSearchCriteria;
+import com.bookstore.service.dto.VersionDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.*;
 
@@ -20,13 +41,23 @@ import java.util.*;
 @RestController
 public class OrderResource {
 
+    /**
+     * Clients may keep the orders but revalidate them on every use; shared caches may not keep them.
+     */
+    private static final String CACHE_CONTROL = "private, no-cache";
+
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
     private final UserService userService;
+    private final ReadYourWritesFilter readYourWritesFilter;
 
     @Autowired
-    public OrderResource(OrderService orderService, UserService userService) {
+    public OrderResource(OrderService orderService, OrderExportService orderExportService,
+                         UserService userService, ReadYourWritesFilter readYourWritesFilter) {
         this.orderService = orderService;
+        this.orderExportService = orderExportService;
         this.userService = userService;
+        this.readYourWritesFilter = readYourWritesFilter;
     }
 
     /**
@@ -34,7 +65,9 @@ public class OrderResource {
      *
      * @param order the order to create
      * @return the ResponseEntity with status 201 (Created) and with body the new order,
-     * or with status 400 (Bad Request) if the order has already an ID
+     * or with status 400 (Bad Request) if the order has already an ID or references
+     * books that do not exist or have no price,
+     * or with status 409 (Conflict) if a book has fewer copies left than ordered
      */
     @PostMapping("/orders")
     public ResponseEntity<Order> createOrder(@RequestBody Order order, Principal principal) {
@@ -42,8 +75,16 @@ public class OrderResource {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
-        order.setUser(userService.findByUserName(principal.getName()));
-        Order resultOrder = orderService.saveOrder(order);
+        order.setUser(currentUser(principal));
+        Order resultOrder;
+        try {
+            resultOrder = orderService.saveOrder(order);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (OutOfStockException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+        readYourWritesFilter.recordWrite(principal.getName());
 
         return new ResponseEntity<>(resultOrder, HttpStatus.CREATED);
     }
@@ -53,7 +94,9 @@ public class OrderResource {
      *
      * @param order the order to update
      * @return the ResponseEntity with state 200 (OK) and with body the updated order,
-     * or with status 400 (Bad Request) if the order is not valid
+     * or with status 400 (Bad Request) if the order is not valid,
+     * or with status 409 (Conflict) if the order was updated concurrently
+     * or a book has fewer copies left than ordered
      */
     @PutMapping("/orders")
     @Secured(SecurityConstants.ADMIN)
@@ -61,7 +104,13 @@ public class OrderResource {
 //        if (order.getOrderId() == null) {
 //            return createOrder(order, principal);
 //        }
-        orderService.saveOrder(order);
+        try {
+            orderService.saveOrder(order);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (OptimisticLockingFailureException | OutOfStockException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
         return new ResponseEntity<>(order, HttpStatus.OK);
     }
 
@@ -73,29 +122,127 @@ public class OrderResource {
      */
     @GetMapping("/orders")
     @Secured(SecurityConstants.ADMIN)
-    public ResponseEntity<List<Order>> getAllOrders() {
-        List<Order> orders = orderService.findAllOrders();
+    public ResponseEntity<List<OrderDTO>> getAllOrders() {
+        List<OrderDTO> orders = orderService.findAllOrders();
         if (orders.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         }
         return new ResponseEntity<>(orders, HttpStatus.OK);
     }
 
+    /**
+     * GET /orders/export : stream all the orders, one row per order line, in order id order.
+     *
+     * @param format ndjson, one JSON object per line, or csv with a header row
+     * @return the ResponseEntity with status 200 (OK) and the rows in body, written as they are read,
+     * or with status 400 (Bad Request) if the format is not valid
+     */
+    @GetMapping("/orders/export")
+    @Secured(SecurityConstants.ADMIN)
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(defaultValue = "ndjson") String format) {
+        FeedFormat feedFormat = FeedFormat.fromParameter(format);
+        if (feedFormat == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType(feedFormat.getMediaType(), StandardCharsets.UTF_8));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"orders." + feedFormat.name().toLowerCase(Locale.ROOT) + "\"");
+        return new ResponseEntity<>(out -> orderExportService.exportOrders(feedFormat, out), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET /orders/search : search the orders, most recent first.
+     *
+     * @param from the first day of the orders to retrieve, inclusive
+     * @param to the day after the last day of the orders to retrieve
+     * @param status the status of the orders to retrieve
+     * @param userId the id of the user who placed the orders
+     * @param minPrice the minimum price of the orders to retrieve
+     * @param cursor the cursor of the page to retrieve, taken from the X-Next-Cursor header of the previous page
+     * @param size the page size, bounded to PaginationUtil.MAX_PAGE_SIZE
+     * @return the ResponseEntity with status 200 (OK) and the list of orders in body,
+     * or with status 204 (NO CONTENT) if there are no more matching orders,
+     * or with status 400 (Bad Request) if the cursor is not valid
+     */
+    @GetMapping("/orders/search")
+    @Secured(SecurityConstants.ADMIN)
+    public ResponseEntity<List<OrderDTO>> searchOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date to,
+            @RequestParam(required = false) Boolean status,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        OrderCursor orderCursor = null;
+        if (cursor != null) {
+            orderCursor = OrderCursor.decode(cursor);
+            if (orderCursor == null) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        }
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        criteria.setFrom(from);
+        criteria.setTo(to);
+        criteria.setStatus(status);
+        criteria.setUserId(userId);
+        criteria.setMinPrice(minPrice);
+
+        CursorPage<OrderDTO> page = orderService.searchOrders(criteria, orderCursor, PaginationUtil.pageSize(size));
+        if (page.getContent().isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(page);
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
     /**
      * GET /orders/:id : get the "id" order.
      *
      * @param id the id of the order to retrieve
+     * @param requestHeaders the headers of the request, If-None-Match and If-Modified-Since are evaluated
+     *                       against the versions of the order and its books before it is loaded
      * @return the ResponseEntity with status 200 (OK) and with body the order,
+     * or with status 304 (Not Modified) if the client already has the order,
      * or with status 404 (NOT FOUND)
      */
     @RequestMapping("/orders/{id}")
     @Secured(SecurityConstants.ADMIN)
-    public ResponseEntity<Order> getOrder(@PathVariable Long id) {
+    public ResponseEntity<Order> getOrder(@PathVariable Long id, @RequestHeader HttpHeaders requestHeaders) {
+        if (ETagUtil.isConditional(requestHeaders)) {
+            VersionDTO version = orderService.findOrderVersion(id);
+            if (version == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            HttpHeaders headers = ETagUtil.validatorHeaders(version, CACHE_CONTROL);
+            if (ETagUtil.notModified(requestHeaders, headers.getETag(), version.getLastModified())) {
+                return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+            }
+        }
         Order order = orderService.findOrderById(id);
         if (order == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        return new ResponseEntity<>(order, HttpStatus.OK);
+        return new ResponseEntity<>(order, ETagUtil.validatorHeaders(version(order), CACHE_CONTROL), HttpStatus.OK);
+    }
+
+    /**
+     * The validators of a loaded order, as OrderService.findOrderVersion reads them.
+     */
+    private static VersionDTO version(Order order) {
+        long bookVersions = 0;
+        Date booksLastModified = null;
+        for (OrderBook line : order.getBooks()) {
+            bookVersions += line.getBook().getBookVersion();
+            Date lastModified = line.getBook().getBookLastModified();
+            if (lastModified != null && (booksLastModified == null || lastModified.after(booksLastModified))) {
+                booksLastModified = lastModified;
+            }
+        }
+        return new VersionDTO(order.getOrderVersion(), order.getOrderLastModified(),
+                order.getUser() == null ? null : order.getUser().getUserName(),
+                (long) order.getBooks().size(), bookVersions, booksLastModified);
     }
 
     /**
@@ -118,18 +265,36 @@ public class OrderResource {
 
     @GetMapping("/users/orders")
     @Secured(SecurityConstants.ADMIN)
-    public ResponseEntity<List<Order>> getOrdersByUser(@RequestParam String userName) {
-        List<Order> orders = orderService.findByUserName(userName);
+    public ResponseEntity<List<OrderDTO>> getOrdersByUser(@RequestParam String userName) {
+        List<OrderDTO> orders = orderService.findByUserName(userName);
         return new ResponseEntity<>(orders, HttpStatus.OK);
     }
 
     @GetMapping("/user/orders")
-    public ResponseEntity<List<Order>> getOrdersByCurrentUser(Principal principal) {
+    public ResponseEntity<List<OrderDTO>> getOrdersByCurrentUser(Principal principal) {
         if (principal == null) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         }
 
-        List<Order> orders = orderService.findByUserName(principal.getName());
+        Long userId = SecurityUtils.getUserId(principal);
+        List<OrderDTO> orders = userId != null
+                ? orderService.findByUserId(userId)
+                : orderService.findByUserName(principal.getName());
         return new ResponseEntity<>(orders, HttpStatus.OK);
     }
+
+    /**
+     * The user placing an order: built from the principal when it carries the
+     * user id, looked up by name otherwise.
+     */
+    private User currentUser(Principal principal) {
+        Long userId = SecurityUtils.getUserId(principal);
+        if (userId == null) {
+            return userService.findByUserName(principal.getName());
+        }
+        User user = new User();
+        user.setUserId(userId);
+        user.setUserName(principal.getName());
+        return user;
+    }
 }
\ No newline at end of file
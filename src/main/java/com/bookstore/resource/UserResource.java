@@ -2,6 +2,8 @@ package com.bookstore.resource;
 
 import com.bookstore.model.Order;
 import com.bookstore.model.User;
+import com.bookstore.resource.util.RejectionUtil;
+import com.bookstore.security.LoginRejectedException;
 import com.bookstore.security.SecurityConstants;
 import com.bookstore.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,7 +33,8 @@ public class UserResource {
      *
      * @param user the user to create
      * @return the ResponseEntity with status 201 (Created) and with body the message,
-     * or with status 400 (Bad Request) if the user has already an ID
+     * or with status 400 (Bad Request) if the user has already an ID,
+     * or with status 429 (Too Many Requests) if too many passwords are being hashed
      */
     @PostMapping("/users")
     @Secured(SecurityConstants.ADMIN)
@@ -40,10 +43,13 @@ public class UserResource {
             return new ResponseEntity<>("idexists", HttpStatus.BAD_REQUEST);
         } else if (userService.findByUserName(user.getUserName()) != null) {
             return new ResponseEntity<>("usernameExists", HttpStatus.BAD_REQUEST);
-        } else {
+        }
+        try {
             userService.createUser(user);
-            return new ResponseEntity<>("User created successfully",HttpStatus.CREATED);
+        } catch (LoginRejectedException e) {
+            return RejectionUtil.rejected(e);
         }
+        return new ResponseEntity<>("User created successfully",HttpStatus.CREATED);
     }
 
     /**
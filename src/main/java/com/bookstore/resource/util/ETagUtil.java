@@ -0,0 +1,93 @@
+package com.bookstore.resource.util;
+
+import com.bookstore.service.dto.VersionDTO;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Utility class for evaluating entity tags of conditional requests.
+ */
+public final class ETagUtil {
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private ETagUtil() {
+    }
+
+    /**
+     * @param value an opaque validator such as a digest or a version
+     * @return the value as a quoted strong entity tag
+     */
+    public static String strong(String value) {
+        return "\"" + value + "\"";
+    }
+
+    /**
+     * Evaluates an If-None-Match header with the weak comparison function of RFC 7232.
+     *
+     * @param ifNoneMatch the header value, may be null
+     * @param etag the current entity tag
+     * @return true if the client already holds the current representation
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String current = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if ("*".equals(candidate) || opaque(candidate).equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param request the headers of the request
+     * @return true if the request carries If-None-Match or If-Modified-Since
+     */
+    public static boolean isConditional(HttpHeaders request) {
+        return request.containsKey(HttpHeaders.IF_NONE_MATCH) || request.containsKey(HttpHeaders.IF_MODIFIED_SINCE);
+    }
+
+    /**
+     * Evaluates the validators of a conditional GET in the order of RFC 7232:
+     * If-None-Match when the client sent one, If-Modified-Since otherwise.
+     *
+     * @param request the headers of the request
+     * @param etag the current entity tag
+     * @param lastModified the time of the last change, may be null
+     * @return true if the client already holds the current representation
+     */
+    public static boolean notModified(HttpHeaders request, String etag, Date lastModified) {
+        List<String> ifNoneMatch = request.get(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matches(String.join(",", ifNoneMatch), etag);
+        }
+        long ifModifiedSince = request.getIfModifiedSince();
+        // HTTP dates have a precision of one second
+        return lastModified != null && ifModifiedSince >= 0 && lastModified.getTime() / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * @param version the validators of the representation
+     * @param cacheControl the Cache-Control directives of the response
+     * @return the ETag, Last-Modified and Cache-Control headers of the response
+     */
+    public static HttpHeaders validatorHeaders(VersionDTO version, String cacheControl) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(strong(version.getVersion()));
+        if (version.getLastModified() != null) {
+            headers.setLastModified(version.getLastModified().getTime());
+        }
+        headers.setCacheControl(cacheControl);
+        return headers;
+    }
+
+    private static String opaque(String etag) {
+        return etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag;
+    }
+}
@@ -0,0 +1,50 @@
+package com.bookstore.resource.util;
+
+import com.bookstore.service.dto.CursorPage;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Utility class for handling cursor pagination.
+ */
+public final class PaginationUtil {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private PaginationUtil() {
+    }
+
+    /**
+     * @param size the page size requested by the client, may be null
+     * @return the requested size bounded to [1, MAX_PAGE_SIZE], or the default size
+     */
+    public static int pageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Builds the X-Next-Cursor and Link headers pointing at the page that follows
+     * the given one, keeping the other query parameters of the current request.
+     *
+     * @param page the page being returned
+     * @return the headers, empty if the page is the last one
+     */
+    public static HttpHeaders generateCursorHttpHeaders(CursorPage<?> page) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.hasNext()) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.getNextCursor())
+                    .toUriString();
+            headers.add(NEXT_CURSOR_HEADER, page.getNextCursor());
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+}
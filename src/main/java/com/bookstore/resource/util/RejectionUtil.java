@@ -0,0 +1,28 @@
+package com.bookstore.resource.util;
+
+import com.bookstore.security.LoginRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Utility class for answering requests turned away before their password was hashed.
+ */
+public final class RejectionUtil {
+
+    private RejectionUtil() {
+    }
+
+    /**
+     * @param rejection the refusal of the password encoder
+     * @return the ResponseEntity with the status of the refusal and its message,
+     * with a Retry-After header for 429 (Too Many Requests)
+     */
+    public static ResponseEntity<String> rejected(LoginRejectedException rejection) {
+        HttpHeaders headers = new HttpHeaders();
+        if (rejection.getStatus() == HttpStatus.TOO_MANY_REQUESTS) {
+            headers.set(HttpHeaders.RETRY_AFTER, LoginRejectedException.RETRY_AFTER_SECONDS);
+        }
+        return new ResponseEntity<>(rejection.getMessage(), headers, rejection.getStatus());
+    }
+}
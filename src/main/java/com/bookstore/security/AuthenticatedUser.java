@@ -0,0 +1,28 @@
+package com.bookstore.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Principal of authenticated requests, carrying the id of the user so that
+ * resources need not look it up by name.
+ */
+public class AuthenticatedUser extends User {
+
+    private final Long userId;
+
+    public AuthenticatedUser(Long userId, String username, String password,
+                             Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.userId = userId;
+    }
+
+    /**
+     * @return the user id, null for tokens issued before it was embedded
+     */
+    public Long getUserId() {
+        return userId;
+    }
+}
@@ -0,0 +1,136 @@
+package com.bookstore.security;
+
+import com.bookstore.config.ApplicationProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs BCrypt on a small dedicated pool so that login storms cannot take every
+ * CPU away from the other requests. Callers wait for their hash; when the
+ * queue is full they are turned away at once with a {@link LoginRejectedException}
+ * carrying 429 (Too Many Requests).
+ * <p>
+ * Hash and queue wait times, queue depth and rejections are published on the
+ * metrics endpoint under password.hashing.
+ */
+@Component
+public class BoundedPasswordEncoder implements PasswordEncoder, PublicMetrics {
+
+    private final BCryptPasswordEncoder delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong hashCount = new AtomicLong();
+
+    private final AtomicLong hashNanos = new AtomicLong();
+
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    @Autowired
+    public BoundedPasswordEncoder(BCryptPasswordEncoder bCryptPasswordEncoder,
+                                  ApplicationProperties applicationProperties) {
+        ApplicationProperties.Password password = applicationProperties.getPassword();
+        this.delegate = bCryptPasswordEncoder;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(password.getHashingThreads(), password.getHashingThreads(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(password.getHashingQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        long count = hashCount.get();
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("password.hashing.count", count));
+        metrics.add(new Metric<>("password.hashing.time.mean",
+                count == 0 ? 0.0 : hashNanos.get() / 1e6 / count));
+        metrics.add(new Metric<>("password.hashing.wait.mean",
+                count == 0 ? 0.0 : waitNanos.get() / 1e6 / count));
+        metrics.add(new Metric<>("password.hashing.queue.depth", executor.getQueue().size()));
+        metrics.add(new Metric<>("password.hashing.active", executor.getActiveCount()));
+        metrics.add(new Metric<>("password.hashing.rejected.count", rejectedCount.get()));
+        return metrics;
+    }
+
+    private <T> T hash(Callable<T> task) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long started = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    long finished = System.nanoTime();
+                    waitNanos.addAndGet(started - submitted);
+                    hashNanos.addAndGet(finished - started);
+                    hashCount.incrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+            throw new LoginRejectedException("Too many concurrent logins", HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
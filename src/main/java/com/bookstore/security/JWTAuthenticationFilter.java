@@ -1,23 +1,27 @@
 package com.bookstore.security;
 
-import com.bookstore.model.User;
+import com.bookstore.service.dto.LoginCredentialsDTO;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.util.Collection;
+import java.io.InputStream;
 import java.util.Date;
 import java.util.stream.Collectors;
 
@@ -25,6 +29,14 @@ import static com.bookstore.security.SecurityConstants.*;
 
 public class JWTAuthenticationFilter extends UsernamePasswordAuthenticationFilter {
 
+    /**
+     * Credentials are a few dozen bytes; anything much larger is not a login.
+     */
+    static final int MAX_BODY_BYTES = 4 * 1024;
+
+    private static final ObjectReader CREDENTIALS_READER = new ObjectMapper()
+            .readerFor(LoginCredentialsDTO.class);
+
     private final AuthenticationManager authenticationManager;
 
     public JWTAuthenticationFilter(AuthenticationManager authenticationManager) {
@@ -34,20 +46,32 @@ public class JWTAuthenticationFilter extends UsernamePasswordAuthenticationFilte
     @Override
     public Authentication attemptAuthentication(HttpServletRequest req,
                                                 HttpServletResponse res) throws AuthenticationException {
+        LoginCredentialsDTO creds;
         try {
-            User creds = new ObjectMapper()
-                    .readValue(req.getInputStream(), User.class);
-            Collection<? extends GrantedAuthority> authorities = creds.getAuthorities().stream()
-                    .map(authority -> new SimpleGrantedAuthority(authority.getName()))
-                    .collect(Collectors.toList());
-            return authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            creds.getUserName(),
-                            creds.getUserPassword(),
-                            authorities)
-            );
+            creds = readCredentials(req.getInputStream(), req.getContentLengthLong());
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            throw new LoginRejectedException("Unreadable credentials", HttpStatus.BAD_REQUEST);
+        }
+        if (creds == null || creds.getUserName() == null || creds.getUserPassword() == null) {
+            throw new LoginRejectedException("Missing credentials", HttpStatus.BAD_REQUEST);
+        }
+        return authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(creds.getUserName(), creds.getUserPassword()));
+    }
+
+    /**
+     * Parses the credentials straight off the stream, refusing bodies larger
+     * than MAX_BODY_BYTES before reading them when their length is declared
+     * and as soon as the limit is crossed otherwise.
+     */
+    static LoginCredentialsDTO readCredentials(InputStream body, long contentLength) throws IOException {
+        if (contentLength > MAX_BODY_BYTES) {
+            throw new LoginRejectedException("Credentials too large", HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+        try {
+            return CREDENTIALS_READER.readValue(new LimitedInputStream(body, MAX_BODY_BYTES));
+        } catch (BodyTooLargeException e) {
+            throw new LoginRejectedException("Credentials too large", HttpStatus.PAYLOAD_TOO_LARGE);
         }
     }
 
@@ -61,13 +85,76 @@ public class JWTAuthenticationFilter extends UsernamePasswordAuthenticationFilte
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(","));
 
+        AuthenticatedUser principal = (AuthenticatedUser) auth.getPrincipal();
         String token = Jwts.builder()
-                .setSubject(((org.springframework.security.core.userdetails.User) auth.getPrincipal()).getUsername())
+                .setSubject(principal.getUsername())
+                .claim(SecurityConstants.USER_ID_KEY, principal.getUserId())
                 .claim(SecurityConstants.AUTHORITIES_KEY, authorities)
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
                 .signWith(SignatureAlgorithm.HS512, SECRET.getBytes())
                 .compact();
         res.addHeader(HEADER_STRING, TOKEN_PREFIX + token);
     }
-}
 
+    /**
+     * Logins refused before their credentials were checked get the status of
+     * the refusal, others 401 (Unauthorized).
+     */
+    @Override
+    protected void unsuccessfulAuthentication(HttpServletRequest req,
+                                              HttpServletResponse res,
+                                              AuthenticationException failed) throws IOException, ServletException {
+        if (failed instanceof LoginRejectedException) {
+            SecurityContextHolder.clearContext();
+            if (((LoginRejectedException) failed).getStatus() == HttpStatus.TOO_MANY_REQUESTS) {
+                res.setHeader(HttpHeaders.RETRY_AFTER, LoginRejectedException.RETRY_AFTER_SECONDS);
+            }
+            res.sendError(((LoginRejectedException) failed).getStatus().value(), failed.getMessage());
+            return;
+        }
+        super.unsuccessfulAuthentication(req, res, failed);
+    }
+
+    /**
+     * Fails reads going past the limit instead of truncating them, so that an
+     * oversized body is told apart from a malformed one.
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                consumed(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            // ask for one byte past the limit to notice it is crossed
+            int read = super.read(b, off, (int) Math.min(len, remaining + 1));
+            if (read > 0) {
+                consumed(read);
+            }
+            return read;
+        }
+
+        private void consumed(int bytes) throws BodyTooLargeException {
+            remaining -= bytes;
+            if (remaining < 0) {
+                throw new BodyTooLargeException();
+            }
+        }
+    }
+
+    private static class BodyTooLargeException extends IOException {
+    }
+}
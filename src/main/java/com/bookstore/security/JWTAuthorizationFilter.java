@@ -2,12 +2,13 @@ package com.bookstore.security;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
+import org.springframework.cache.Cache;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.codec.Hex;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 import javax.servlet.FilterChain;
@@ -15,16 +16,34 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 import static com.bookstore.security.SecurityConstants.*;
 
 public class JWTAuthorizationFilter extends BasicAuthenticationFilter {
 
-    public JWTAuthorizationFilter(AuthenticationManager authManager) {
+    /**
+     * Authorities by value of the auth claim, shared by all the tokens carrying it.
+     */
+    private static final ConcurrentMap<String, List<GrantedAuthority>> AUTHORITIES = new ConcurrentHashMap<>();
+
+    /**
+     * Principals of verified tokens, keyed by the SHA-256 of the token.
+     */
+    private final Cache tokenCache;
+
+    public JWTAuthorizationFilter(AuthenticationManager authManager, Cache tokenCache) {
         super(authManager);
+        this.tokenCache = tokenCache;
     }
 
     @Override
@@ -38,32 +57,64 @@ public class JWTAuthorizationFilter extends BasicAuthenticationFilter {
             return;
         }
 
-        UsernamePasswordAuthenticationToken authentication = getAuthentication(req);
+        UsernamePasswordAuthenticationToken authentication = getAuthentication(header);
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         chain.doFilter(req, res);
     }
 
-    private UsernamePasswordAuthenticationToken getAuthentication(HttpServletRequest request) {
-        String token = request.getHeader(HEADER_STRING);
-        if (token != null) {
+    /**
+     * The signature and claims of a token are checked once; later requests
+     * with the same token get the principal from the cache until the token
+     * expires.
+     */
+    UsernamePasswordAuthenticationToken getAuthentication(String header) {
+        String token = header.substring(TOKEN_PREFIX.length());
+        String key = sha256(token);
+        VerifiedToken verified = tokenCache.get(key, VerifiedToken.class);
+        if (verified == null || verified.expiresAt <= System.currentTimeMillis()) {
             // parse the token.
             Claims claims = Jwts.parser()
                     .setSigningKey(SECRET.getBytes())
-                    .parseClaimsJws(token.replace(TOKEN_PREFIX, ""))
+                    .parseClaimsJws(token)
                     .getBody();
 
-            Collection<? extends GrantedAuthority> authorities =
-                    Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-                            .map(SimpleGrantedAuthority::new)
-                            .collect(Collectors.toList());
-            User principal = new User(claims.getSubject(), "", authorities);
+            List<GrantedAuthority> authorities = AUTHORITIES.computeIfAbsent(
+                    claims.get(AUTHORITIES_KEY).toString(), JWTAuthorizationFilter::parseAuthorities);
+            Date expiration = claims.getExpiration();
+            Number userId = claims.get(USER_ID_KEY, Number.class);
+            verified = new VerifiedToken(new AuthenticatedUser(userId != null ? userId.longValue() : null,
+                    claims.getSubject(), "", authorities),
+                    expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+            tokenCache.put(key, verified);
+        }
+        return new UsernamePasswordAuthenticationToken(verified.principal, null, verified.principal.getAuthorities());
+    }
+
+    private static List<GrantedAuthority> parseAuthorities(String claim) {
+        return Collections.unmodifiableList(Arrays.stream(claim.split(","))
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList()));
+    }
+
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return new String(Hex.encode(digest.digest(token.getBytes(StandardCharsets.UTF_8))));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class VerifiedToken {
+
+        private final AuthenticatedUser principal;
+
+        private final long expiresAt;
 
-            if (principal != null) {
-                return new UsernamePasswordAuthenticationToken(principal, null, authorities);
-            }
-            return null;
+        VerifiedToken(AuthenticatedUser principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
         }
-        return null;
     }
 }
@@ -0,0 +1,27 @@
+package com.bookstore.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Login refused before the credentials were checked, answered with the given
+ * status instead of 401 (Unauthorized).
+ */
+public class LoginRejectedException extends AuthenticationServiceException {
+
+    /**
+     * Seconds a client turned away with 429 (Too Many Requests) should wait.
+     */
+    public static final String RETRY_AFTER_SECONDS = "1";
+
+    private final HttpStatus status;
+
+    public LoginRejectedException(String message, HttpStatus status) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
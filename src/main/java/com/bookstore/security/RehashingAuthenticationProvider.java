@@ -0,0 +1,58 @@
+package com.bookstore.security;
+
+import com.bookstore.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks passwords like {@link DaoAuthenticationProvider} and, after a
+ * successful login, hashes the password again when it was stored with a
+ * BCrypt cost other than the configured one.
+ */
+public class RehashingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(RehashingAuthenticationProvider.class);
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2a?\\$(\\d\\d)\\$");
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final UserService userService;
+
+    private final int strength;
+
+    public RehashingAuthenticationProvider(UserDetailsService userDetailsService,
+                                           PasswordEncoder passwordEncoder,
+                                           UserService userService,
+                                           int strength) {
+        this.passwordEncoder = passwordEncoder;
+        this.userService = userService;
+        this.strength = strength;
+        setUserDetailsService(userDetailsService);
+        setPasswordEncoder(passwordEncoder);
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication,
+                                                         UserDetails user) {
+        Matcher cost = BCRYPT_COST.matcher(user.getPassword());
+        if (cost.find() && Integer.parseInt(cost.group(1)) != strength) {
+            try {
+                String rehashed = passwordEncoder.encode(authentication.getCredentials().toString());
+                userService.updatePasswordHash(user.getUsername(), rehashed);
+            } catch (LoginRejectedException e) {
+                // the hashing pool is saturated, the password is rehashed on a later login
+                log.debug("Rehash of the password of {} postponed: {}", user.getUsername(), e.getMessage());
+            }
+        }
+        return super.createSuccessAuthentication(principal, authentication, user);
+    }
+}
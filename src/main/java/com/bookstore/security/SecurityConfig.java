@@ -1,8 +1,14 @@
 package com.bookstore.security;
 
+import com.bookstore.config.ApplicationProperties;
+import com.bookstore.config.CacheConfiguration;
+import com.bookstore.resource.util.PaginationUtil;
+import com.bookstore.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
@@ -11,7 +17,12 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.header.writers.DelegatingRequestMatcherHeaderWriter;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RegexRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -24,13 +35,32 @@ import static com.bookstore.security.SecurityConstants.SIGN_UP_URL;
 @EnableGlobalMethodSecurity(securedEnabled=true)
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
+    /**
+     * Responses that set their own Cache-Control and carry validators. The
+     * default headers forbidding any caching are written before the request
+     * is handled, so they are left out for these rather than overridden.
+     */
+    private static final RequestMatcher CACHEABLE_GETS = new OrRequestMatcher(
+            new RegexRequestMatcher("/books(\\?.*)?", "GET"),
+            new RegexRequestMatcher("/books/\\d+", "GET"),
+            new RegexRequestMatcher("/books/\\d+/image(\\?.*)?", "GET"),
+            new RegexRequestMatcher("/orders/\\d+", "GET"));
+
     private final UserDetailsService userDetailsService;
-    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final UserService userService;
+    private final CacheManager cacheManager;
+    private final ApplicationProperties applicationProperties;
 
     @Autowired
-    public SecurityConfig(UserDetailsService userDetailsService, BCryptPasswordEncoder bCryptPasswordEncoder) {
+    public SecurityConfig(UserDetailsService userDetailsService, BoundedPasswordEncoder passwordEncoder,
+                          UserService userService, CacheManager cacheManager,
+                          ApplicationProperties applicationProperties) {
         this.userDetailsService = userDetailsService;
-        this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.passwordEncoder = passwordEncoder;
+        this.userService = userService;
+        this.cacheManager = cacheManager;
+        this.applicationProperties = applicationProperties;
     }
 
     @Override
@@ -38,18 +68,29 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         http.cors().and().csrf().disable().authorizeRequests()
                 .antMatchers(HttpMethod.POST, SIGN_UP_URL).permitAll()
                 .antMatchers(HttpMethod.GET,"/books").permitAll()
+                .antMatchers(HttpMethod.GET,"/books/search").permitAll()
+                .antMatchers(HttpMethod.GET,"/books/suggest").permitAll()
+                .antMatchers(HttpMethod.GET,"/books/*/image").permitAll()
                 .antMatchers(HttpMethod.POST,"/orders").permitAll()
+                .antMatchers("/management/**").hasAuthority(SecurityConstants.ADMIN)
                 .anyRequest().authenticated()
                 .and()
                 .addFilter(new JWTAuthenticationFilter(authenticationManager()))
-                .addFilter(new JWTAuthorizationFilter(authenticationManager()))
+                .addFilter(new JWTAuthorizationFilter(authenticationManager(),
+                        cacheManager.getCache(CacheConfiguration.TOKENS)))
                 // this disables session creation on Spring Security
-                .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
+                .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                .and()
+                .headers()
+                .cacheControl().disable()
+                .addHeaderWriter(new DelegatingRequestMatcherHeaderWriter(
+                        new NegatedRequestMatcher(CACHEABLE_GETS), new CacheControlHeadersWriter()));
     }
 
     @Override
     public void configure(AuthenticationManagerBuilder auth) throws Exception {
-        auth.userDetailsService(userDetailsService).passwordEncoder(bCryptPasswordEncoder);
+        auth.authenticationProvider(new RehashingAuthenticationProvider(userDetailsService, passwordEncoder,
+                userService, applicationProperties.getPassword().getBcryptStrength()));
     }
 
     @Bean
@@ -59,6 +100,9 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         config.setAllowCredentials(true);
         config.addAllowedOrigin("*");
         config.addExposedHeader(HEADER_STRING); //Header String
+        config.addExposedHeader(HttpHeaders.LINK);
+        config.addExposedHeader(PaginationUtil.NEXT_CURSOR_HEADER);
+        config.addExposedHeader(HttpHeaders.ETAG);
         config.addAllowedHeader("*");
         config.addAllowedMethod("OPTIONS");
         config.addAllowedMethod("GET");
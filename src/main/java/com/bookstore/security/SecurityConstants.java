@@ -13,6 +13,7 @@ public class SecurityConstants {
     public static final String ANONYMOUS = "ROLE_ANONYMOUS";
 
     public static final String AUTHORITIES_KEY = "auth";
+    public static final String USER_ID_KEY = "uid";
 
     private SecurityConstants() {
     }
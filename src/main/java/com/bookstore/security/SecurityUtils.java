@@ -0,0 +1,26 @@
+package com.bookstore.security;
+
+import org.springframework.security.core.Authentication;
+
+import java.security.Principal;
+
+/**
+ * Utility class for Spring Security.
+ */
+public final class SecurityUtils {
+
+    private SecurityUtils() {
+    }
+
+    /**
+     * @return the id of the authenticated user, or null if the principal does
+     * not carry it
+     */
+    public static Long getUserId(Principal principal) {
+        if (principal instanceof Authentication
+                && ((Authentication) principal).getPrincipal() instanceof AuthenticatedUser) {
+            return ((AuthenticatedUser) ((Authentication) principal).getPrincipal()).getUserId();
+        }
+        return null;
+    }
+}
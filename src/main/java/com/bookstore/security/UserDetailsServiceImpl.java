@@ -4,7 +4,6 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import com.bookstore.model.User;
-import com.bookstore.repository.UserRepository;
 import com.bookstore.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
@@ -18,17 +17,17 @@ import org.springframework.stereotype.Service;
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
 
-    private final UserRepository userRepository;
+    private final UserService userService;
 
     @Autowired
-    public UserDetailsServiceImpl(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public UserDetailsServiceImpl(UserService userService) {
+        this.userService = userService;
     }
 
     @Override
     public UserDetails loadUserByUsername(String userName)
             throws UsernameNotFoundException {
-        User user = userRepository.findOneWithAuthoritiesByUserName(userName);
+        User user = userService.findByUserName(userName);
         if (user == null) {
             throw new UsernameNotFoundException(userName);
         }
@@ -37,6 +36,6 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 .map(authority -> new SimpleGrantedAuthority(authority.getName()))
                 .collect(Collectors.toList());
 
-        return new org.springframework.security.core.userdetails.User(user.getUserName(), user.getUserPassword(), authorities);
+        return new AuthenticatedUser(user.getUserId(), user.getUserName(), user.getUserPassword(), authorities);
     }
 }
\ No newline at end of file
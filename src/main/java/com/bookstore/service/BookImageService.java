@@ -0,0 +1,24 @@
+package com.bookstore.service;
+
+import com.bookstore.service.dto.BookImageDTO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface BookImageService {
+
+    BookImageDTO findImage(Long bookId);
+
+    /**
+     * @param bookId the id of the book
+     * @param width the width the client will display the image at, null for the original
+     * @return the narrowest variant at least as wide as requested, or the original
+     */
+    BookImageDTO findImage(Long bookId, Integer width);
+
+    void writeImage(BookImageDTO image, long offset, long length, OutputStream out) throws IOException;
+
+    void saveImage(Long bookId, byte[] image);
+
+    void deleteImages(Long bookId);
+}
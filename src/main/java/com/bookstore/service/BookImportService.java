@@ -0,0 +1,23 @@
+package com.bookstore.service;
+
+import com.bookstore.service.dto.BookImportReportDTO;
+import com.bookstore.service.dto.FeedFormat;
+
+import java.io.IOException;
+import java.io.Reader;
+
+public interface BookImportService {
+
+    /**
+     * Creates or updates a book for every row of the feed, matching them by
+     * ISBN, while the feed is read. Rows that cannot be stored are reported
+     * and do not stop the import.
+     * <p>
+     * A CSV feed starts with a header row naming its columns: isbn, title,
+     * author, pages, price and description, in any order and any subset
+     * including isbn. An NDJSON feed has the properties accepted by POST /books.
+     *
+     * @throws IllegalArgumentException if the CSV header names unknown columns or lacks the isbn one
+     */
+    BookImportReportDTO importBooks(Reader feed, FeedFormat format) throws IOException;
+}
@@ -0,0 +1,29 @@
+package com.bookstore.service;
+
+import com.bookstore.model.Order;
+import com.bookstore.service.dto.BestsellerDTO;
+import com.bookstore.service.dto.SalesPeriod;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BookSalesService {
+
+    /**
+     * The books that sold the most copies over the period ending on the given
+     * day, most copies first. Sales count once they are rolled up.
+     */
+    List<BestsellerDTO> findBestsellers(SalesPeriod period, LocalDate lastDay, int size);
+
+    /**
+     * Counts the copies of the order towards the sales of the day it was placed.
+     * Inside a transaction, they count once it commits.
+     */
+    void addSales(Order order);
+
+    /**
+     * Takes the copies of a deleted or replaced order back from the sales of the
+     * day it was placed. Inside a transaction, this happens once it commits.
+     */
+    void removeSales(Order order);
+}
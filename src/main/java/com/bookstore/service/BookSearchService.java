@@ -0,0 +1,27 @@
+package com.bookstore.service;
+
+import com.bookstore.model.Book;
+import com.bookstore.service.dto.BookSummaryDTO;
+import com.bookstore.service.dto.CursorPage;
+import com.bookstore.service.dto.SearchCursor;
+
+public interface BookSearchService {
+
+    /**
+     * Books matching every word of the query in their title, author, ISBN or
+     * description, best matches first. The last word also matches as a prefix.
+     */
+    CursorPage<BookSummaryDTO> search(String query, SearchCursor cursor, int size);
+
+    /**
+     * Indexes the book, replacing what was indexed for it before. Inside a
+     * transaction, the index changes once it commits.
+     */
+    void index(Book book);
+
+    /**
+     * Removes the book from the index. Inside a transaction, the index changes
+     * once it commits.
+     */
+    void remove(Long bookId);
+}
@@ -1,6 +1,11 @@
 package com.bookstore.service;
 
 import com.bookstore.model.Book;
+import com.bookstore.service.dto.BookSort;
+import com.bookstore.service.dto.BookSummaryDTO;
+import com.bookstore.service.dto.CursorPage;
+import com.bookstore.service.dto.KeysetCursor;
+import com.bookstore.service.dto.VersionDTO;
 
 import java.util.List;
 
@@ -8,8 +13,15 @@ public interface BookService {
 
     List<Book> findAllBooks();
 
+    CursorPage<BookSummaryDTO> findBookPage(BookSort sort, KeysetCursor cursor, int size);
+
     Book findBookById(Long bookId);
 
+    /**
+     * @return the validators of the book, or null if there is no such book
+     */
+    VersionDTO findBookVersion(Long bookId);
+
     Book updateBook(Book book);
 
     void deleteBook(Book book);
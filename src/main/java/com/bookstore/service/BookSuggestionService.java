@@ -0,0 +1,39 @@
+package com.bookstore.service;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Order;
+import com.bookstore.service.dto.BookSuggestionDTO;
+
+import java.util.List;
+
+public interface BookSuggestionService {
+
+    /**
+     * Titles and authors starting with the prefix, best selling first.
+     */
+    List<BookSuggestionDTO> suggest(String prefix, int size);
+
+    /**
+     * Takes the title and author of the book into the suggestions, in place of
+     * the previous ones. Inside a transaction, the suggestions change once it commits.
+     */
+    void index(Book book);
+
+    /**
+     * Removes the book from the suggestions. Inside a transaction, the
+     * suggestions change once it commits.
+     */
+    void remove(Long bookId);
+
+    /**
+     * Counts the copies of the order towards the popularity of their books.
+     * Inside a transaction, the suggestions change once it commits.
+     */
+    void addSales(Order order);
+
+    /**
+     * Takes the copies of a deleted order back from the popularity of their
+     * books. Inside a transaction, the suggestions change once it commits.
+     */
+    void removeSales(Order order);
+}
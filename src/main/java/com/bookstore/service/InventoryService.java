@@ -0,0 +1,43 @@
+package com.bookstore.service;
+
+import com.bookstore.model.Order;
+
+public interface InventoryService {
+
+    /**
+     * @return the copies of the book left, or null if its stock is not tracked
+     */
+    Long findStock(Long bookId);
+
+    /**
+     * Sets the copies of the book left; null stops tracking its stock.
+     */
+    void updateStock(Long bookId, Long quantity);
+
+    /**
+     * Takes the copies of every line of a new order from the stock of their
+     * books, or none of them. The copies are taken at once, in a transaction of
+     * their own, and given back if the current transaction rolls back.
+     *
+     * @throws OutOfStockException if a book has fewer copies left than ordered
+     */
+    void reserve(Order order);
+
+    /**
+     * Adjusts the stock to an order replacing a stored one. The copies ordered
+     * on top of the replaced lines are taken as {@link #reserve} takes them;
+     * the copies no longer ordered are given back once the current transaction
+     * commits.
+     *
+     * @param replaced the lines of the stored order
+     * @param order the lines replacing them
+     * @throws OutOfStockException if a book has fewer copies left than ordered on top
+     */
+    void reserve(Order replaced, Order order);
+
+    /**
+     * Gives back the copies of every line of a deleted order once the current
+     * transaction commits.
+     */
+    void release(Order order);
+}
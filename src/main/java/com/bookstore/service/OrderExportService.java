@@ -0,0 +1,16 @@
+package com.bookstore.service;
+
+import com.bookstore.service.dto.FeedFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface OrderExportService {
+
+    /**
+     * Writes every order line, flattened with its order, user and book, to the
+     * stream as it is read from the database, in UTF-8. The stream is flushed,
+     * not closed.
+     */
+    void exportOrders(FeedFormat format, OutputStream out) throws IOException;
+}
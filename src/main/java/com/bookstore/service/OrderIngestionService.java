@@ -0,0 +1,26 @@
+package com.bookstore.service;
+
+import com.bookstore.model.Order;
+import com.bookstore.service.dto.IngestionLagDTO;
+import com.bookstore.service.dto.OrderIngestionStatusDTO;
+
+import java.io.IOException;
+
+public interface OrderIngestionService {
+
+    /**
+     * Queues the order of the user; it is priced and written to the database later.
+     *
+     * @return the handle to follow the order with
+     * @throws IllegalArgumentException if the order is not valid
+     * @throws IOException if the order could not be queued
+     */
+    String enqueueOrder(Order order, Long userId) throws IOException;
+
+    /**
+     * @return the status of the order, or null if the handle is unknown
+     */
+    OrderIngestionStatusDTO findStatus(String handle);
+
+    IngestionLagDTO getLag() throws IOException;
+}
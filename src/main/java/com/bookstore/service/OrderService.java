@@ -1,18 +1,54 @@
 package com.bookstore.service;
 
 import com.bookstore.model.Order;
+import com.bookstore.service.dto.CursorPage;
+import com.bookstore.service.dto.OrderCursor;
+import com.bookstore.service.dto.OrderDTO;
+import com.bookstore.service.dto.OrderSearchCriteria;
+import com.bookstore.service.dto.RejectedOrderDTO;
+import com.bookstore.service.dto.VersionDTO;
 
 import java.util.List;
 
 public interface OrderService {
 
-    List<Order> findAllOrders();
+    List<OrderDTO> findAllOrders();
+
+    CursorPage<OrderDTO> searchOrders(OrderSearchCriteria criteria, OrderCursor cursor, int size);
 
     Order findOrderById(Long orderId);
 
+    /**
+     * @return the validators of the order as findOrderById shows it, or null if there is no such order
+     */
+    VersionDTO findOrderVersion(Long orderId);
+
+    /**
+     * Saves the order, priced from the current prices of its books. The copies
+     * of a new order are taken from the stock of its books; an order replacing
+     * a stored one takes the copies it adds and gives back the ones it drops.
+     *
+     * @throws IllegalArgumentException if the order cannot be priced
+     * @throws OutOfStockException if a book has fewer copies left than ordered on top of the stored order
+     */
     Order saveOrder(Order order);
 
+    /**
+     * Places new orders as saveOrder places one, pricing all of them with one
+     * statement and inserting them together. Orders without a date are dated
+     * now. An order that cannot be placed is left out and does not keep the
+     * others from being placed.
+     *
+     * @return the orders left out, with the exception saveOrder throws for them
+     */
+    List<RejectedOrderDTO> placeOrders(List<Order> orders);
+
+    /**
+     * Deletes the stored order and gives its copies back to the stock.
+     */
     void deleteOrder(Order order);
 
-    List<Order> findByUserName(String userName);
+    List<OrderDTO> findByUserName(String userName);
+
+    List<OrderDTO> findByUserId(Long userId);
 }
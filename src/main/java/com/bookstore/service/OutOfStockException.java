@@ -0,0 +1,18 @@
+package com.bookstore.service;
+
+/**
+ * Thrown when an order asks for more copies of a book than are left.
+ */
+public class OutOfStockException extends RuntimeException {
+
+    private final Long bookId;
+
+    public OutOfStockException(Long bookId) {
+        super("Not enough copies of book " + bookId + " left");
+        this.bookId = bookId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+}
@@ -16,5 +16,7 @@ public interface UserService {
 
     void updateUser(User user);
 
+    void updatePasswordHash(String userName, String passwordHash);
+
     void deleteUserById(Long userId);
 }
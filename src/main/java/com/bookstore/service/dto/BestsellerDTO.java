@@ -0,0 +1,59 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * Copies of a book sold over a period.
+ */
+public class BestsellerDTO implements Serializable {
+
+    private Long bookId;
+
+    private String bookTitle;
+
+    private String bookAuthor;
+
+    private Long quantity;
+
+    public BestsellerDTO() {
+    }
+
+    public BestsellerDTO(Long bookId, String bookTitle, String bookAuthor, Long quantity) {
+        this.bookId = bookId;
+        this.bookTitle = bookTitle;
+        this.bookAuthor = bookAuthor;
+        this.quantity = quantity;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getBookTitle() {
+        return bookTitle;
+    }
+
+    public void setBookTitle(String bookTitle) {
+        this.bookTitle = bookTitle;
+    }
+
+    public String getBookAuthor() {
+        return bookAuthor;
+    }
+
+    public void setBookAuthor(String bookAuthor) {
+        this.bookAuthor = bookAuthor;
+    }
+
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,82 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * Metadata of a stored book image or of one of its downscaled variants.
+ * The bytes themselves are streamed on demand.
+ */
+public class BookImageDTO implements Serializable {
+
+    private final Long bookId;
+
+    private final Integer width;
+
+    private final String contentType;
+
+    private final long length;
+
+    private final String digest;
+
+    private final boolean variantsGenerated;
+
+    public BookImageDTO(Long bookId, Integer width, String contentType, long length,
+                        String digest, boolean variantsGenerated) {
+        this.bookId = bookId;
+        this.width = width;
+        this.contentType = contentType;
+        this.length = length;
+        this.digest = digest;
+        this.variantsGenerated = variantsGenerated;
+    }
+
+    public static BookImageDTO original(Long bookId, String contentType, long length,
+                                        String digest, boolean variantsGenerated) {
+        return new BookImageDTO(bookId, null, contentType, length, digest, variantsGenerated);
+    }
+
+    public static BookImageDTO variant(Long bookId, int width, String contentType, long length, String digest) {
+        return new BookImageDTO(bookId, width, contentType, length, digest, false);
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    /**
+     * @return the width of the variant, or null for the original upload
+     */
+    public Integer getWidth() {
+        return width;
+    }
+
+    public boolean isVariant() {
+        return width != null;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * @return the hex SHA-256 of the image bytes, used as a strong ETag
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * @return for an original, whether its variants have been generated
+     */
+    public boolean isVariantsGenerated() {
+        return variantsGenerated;
+    }
+
+    public BookImageDTO withDigest(String digest) {
+        return new BookImageDTO(bookId, width, contentType, length, digest, false);
+    }
+}
@@ -0,0 +1,51 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A row of an import feed that was not stored.
+ */
+public class BookImportErrorDTO implements Serializable {
+
+    /**
+     * Line of the feed the row starts on, counting from 1.
+     */
+    private long line;
+
+    private String bookIsbn;
+
+    private String message;
+
+    public BookImportErrorDTO() {
+    }
+
+    public BookImportErrorDTO(long line, String bookIsbn, String message) {
+        this.line = line;
+        this.bookIsbn = bookIsbn;
+        this.message = message;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public String getBookIsbn() {
+        return bookIsbn;
+    }
+
+    public void setBookIsbn(String bookIsbn) {
+        this.bookIsbn = bookIsbn;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,64 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a catalog import. Only the first errors are listed, failed counts them all.
+ */
+public class BookImportReportDTO implements Serializable {
+
+    private long created;
+
+    private long updated;
+
+    private long failed;
+
+    /**
+     * False if the feed could not be read to its end; the rows before the error are stored.
+     */
+    private boolean complete = true;
+
+    private List<BookImportErrorDTO> errors = new ArrayList<>();
+
+    public long getCreated() {
+        return created;
+    }
+
+    public void setCreated(long created) {
+        this.created = created;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    public List<BookImportErrorDTO> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<BookImportErrorDTO> errors) {
+        this.errors = errors;
+    }
+}
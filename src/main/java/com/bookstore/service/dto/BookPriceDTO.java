@@ -0,0 +1,38 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Current price of a book, as read when pricing an order.
+ */
+public class BookPriceDTO implements Serializable {
+
+    private Long bookId;
+
+    private BigDecimal bookPrice;
+
+    public BookPriceDTO() {
+    }
+
+    public BookPriceDTO(Long bookId, BigDecimal bookPrice) {
+        this.bookId = bookId;
+        this.bookPrice = bookPrice;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public BigDecimal getBookPrice() {
+        return bookPrice;
+    }
+
+    public void setBookPrice(BigDecimal bookPrice) {
+        this.bookPrice = bookPrice;
+    }
+}
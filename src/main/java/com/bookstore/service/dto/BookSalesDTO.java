@@ -0,0 +1,37 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * Copies sold of a book over all orders.
+ */
+public class BookSalesDTO implements Serializable {
+
+    private Long bookId;
+
+    private Long quantity;
+
+    public BookSalesDTO() {
+    }
+
+    public BookSalesDTO(Long bookId, Long quantity) {
+        this.bookId = bookId;
+        this.quantity = quantity;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,46 @@
+package com.bookstore.service.dto;
+
+/**
+ * Sort keys supported by the catalog listing. Every key is paired with the
+ * book id so that the ordering is total and can be resumed from a cursor.
+ */
+public enum BookSort {
+
+    ID {
+        @Override
+        public String keyOf(BookSummaryDTO book) {
+            return null;
+        }
+    },
+    TITLE {
+        @Override
+        public String keyOf(BookSummaryDTO book) {
+            return book.getBookTitle();
+        }
+    },
+    PRICE {
+        @Override
+        public String keyOf(BookSummaryDTO book) {
+            return book.getBookPrice() == null ? null : book.getBookPrice().toPlainString();
+        }
+    };
+
+    /**
+     * @param book the last book of a page
+     * @return the sort key of the book as stored in a cursor, null for ID or missing values
+     */
+    public abstract String keyOf(BookSummaryDTO book);
+
+    /**
+     * @param value the request parameter, case insensitive
+     * @return the matching sort key, or null if there is none
+     */
+    public static BookSort fromParameter(String value) {
+        for (BookSort sort : values()) {
+            if (sort.name().equalsIgnoreCase(value)) {
+                return sort;
+            }
+        }
+        return null;
+    }
+}
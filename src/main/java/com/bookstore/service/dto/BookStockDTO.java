@@ -0,0 +1,37 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * Copies of a book left for sale; a null quantity means the stock is not tracked.
+ */
+public class BookStockDTO implements Serializable {
+
+    private Long bookId;
+
+    private Long quantity;
+
+    public BookStockDTO() {
+    }
+
+    public BookStockDTO(Long bookId, Long quantity) {
+        this.bookId = bookId;
+        this.quantity = quantity;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,53 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A completion of what a user is typing: a book title or author, with the
+ * number of copies sold of the books it stands for.
+ */
+public class BookSuggestionDTO implements Serializable {
+
+    public enum Type {
+        TITLE, AUTHOR
+    }
+
+    private String text;
+
+    private Type type;
+
+    private long popularity;
+
+    public BookSuggestionDTO() {
+    }
+
+    public BookSuggestionDTO(String text, Type type, long popularity) {
+        this.text = text;
+        this.type = type;
+        this.popularity = popularity;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public long getPopularity() {
+        return popularity;
+    }
+
+    public void setPopularity(long popularity) {
+        this.popularity = popularity;
+    }
+}
@@ -0,0 +1,109 @@
+package com.bookstore.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Lightweight projection of a Book used by catalog listings.
+ * Carries neither the image nor the description.
+ */
+public class BookSummaryDTO implements Serializable {
+
+    private Long bookId;
+
+    private String bookTitle;
+
+    private String bookAuthor;
+
+    private Integer bookPages;
+
+    private String bookIsbn;
+
+    private BigDecimal bookPrice;
+
+    /**
+     * Goes into the entity tag of the pages listing the book.
+     */
+    @JsonIgnore
+    private long bookVersion;
+
+    public BookSummaryDTO() {
+    }
+
+    public BookSummaryDTO(Long bookId, String bookTitle, String bookAuthor,
+                          Integer bookPages, String bookIsbn, BigDecimal bookPrice, long bookVersion) {
+        this.bookId = bookId;
+        this.bookTitle = bookTitle;
+        this.bookAuthor = bookAuthor;
+        this.bookPages = bookPages;
+        this.bookIsbn = bookIsbn;
+        this.bookPrice = bookPrice;
+        this.bookVersion = bookVersion;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getBookTitle() {
+        return bookTitle;
+    }
+
+    public void setBookTitle(String bookTitle) {
+        this.bookTitle = bookTitle;
+    }
+
+    public String getBookAuthor() {
+        return bookAuthor;
+    }
+
+    public void setBookAuthor(String bookAuthor) {
+        this.bookAuthor = bookAuthor;
+    }
+
+    public Integer getBookPages() {
+        return bookPages;
+    }
+
+    public void setBookPages(Integer bookPages) {
+        this.bookPages = bookPages;
+    }
+
+    public String getBookIsbn() {
+        return bookIsbn;
+    }
+
+    public void setBookIsbn(String bookIsbn) {
+        this.bookIsbn = bookIsbn;
+    }
+
+    public BigDecimal getBookPrice() {
+        return bookPrice;
+    }
+
+    public void setBookPrice(BigDecimal bookPrice) {
+        this.bookPrice = bookPrice;
+    }
+
+    public long getBookVersion() {
+        return bookVersion;
+    }
+
+    public void setBookVersion(long bookVersion) {
+        this.bookVersion = bookVersion;
+    }
+
+    @Override
+    public String toString() {
+        return "BookSummaryDTO{" +
+                "bookId=" + bookId +
+                ", bookTitle='" + bookTitle + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,70 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * The searchable text of a book, as read to build the search index.
+ */
+public class BookTextDTO implements Serializable {
+
+    private Long bookId;
+
+    private String bookTitle;
+
+    private String bookAuthor;
+
+    private String bookIsbn;
+
+    private String bookDescription;
+
+    public BookTextDTO() {
+    }
+
+    public BookTextDTO(Long bookId, String bookTitle, String bookAuthor, String bookIsbn, String bookDescription) {
+        this.bookId = bookId;
+        this.bookTitle = bookTitle;
+        this.bookAuthor = bookAuthor;
+        this.bookIsbn = bookIsbn;
+        this.bookDescription = bookDescription;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getBookTitle() {
+        return bookTitle;
+    }
+
+    public void setBookTitle(String bookTitle) {
+        this.bookTitle = bookTitle;
+    }
+
+    public String getBookAuthor() {
+        return bookAuthor;
+    }
+
+    public void setBookAuthor(String bookAuthor) {
+        this.bookAuthor = bookAuthor;
+    }
+
+    public String getBookIsbn() {
+        return bookIsbn;
+    }
+
+    public void setBookIsbn(String bookIsbn) {
+        this.bookIsbn = bookIsbn;
+    }
+
+    public String getBookDescription() {
+        return bookDescription;
+    }
+
+    public void setBookDescription(String bookDescription) {
+        this.bookDescription = bookDescription;
+    }
+}
@@ -0,0 +1,36 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing.
+ *
+ * @param <T> the type of the page elements
+ */
+public class CursorPage<T> implements Serializable {
+
+    private final List<T> content;
+
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return the opaque cursor of the following page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
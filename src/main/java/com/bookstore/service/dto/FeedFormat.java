@@ -0,0 +1,54 @@
+package com.bookstore.service.dto;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Formats of the feeds read by the catalog import and written by the order export.
+ */
+public enum FeedFormat {
+
+    /**
+     * RFC 4180 CSV with a header row naming the columns.
+     */
+    CSV("text/csv"),
+    /**
+     * One JSON object per line.
+     */
+    NDJSON("application/x-ndjson");
+
+    private final MediaType mediaType;
+
+    FeedFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @param contentType the content type of the request, parameters ignored
+     * @return the matching format, or null if there is none
+     */
+    public static FeedFormat fromMediaType(MediaType contentType) {
+        for (FeedFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(contentType)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param value the request parameter, case insensitive
+     * @return the matching format, or null if there is none
+     */
+    public static FeedFormat fromParameter(String value) {
+        for (FeedFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
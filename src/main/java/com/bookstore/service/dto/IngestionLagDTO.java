@@ -0,0 +1,74 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * How far the ingestion writer is behind the queue.
+ */
+public class IngestionLagDTO implements Serializable {
+
+    private long pendingOrders;
+
+    private long pendingBytes;
+
+    /**
+     * Age in milliseconds of the oldest order not yet written, 0 when the queue is empty.
+     */
+    private long oldestPendingAgeMillis;
+
+    private long storedOrders;
+
+    private long rejectedOrders;
+
+    public IngestionLagDTO() {
+    }
+
+    public IngestionLagDTO(long pendingOrders, long pendingBytes, long oldestPendingAgeMillis,
+                           long storedOrders, long rejectedOrders) {
+        this.pendingOrders = pendingOrders;
+        this.pendingBytes = pendingBytes;
+        this.oldestPendingAgeMillis = oldestPendingAgeMillis;
+        this.storedOrders = storedOrders;
+        this.rejectedOrders = rejectedOrders;
+    }
+
+    public long getPendingOrders() {
+        return pendingOrders;
+    }
+
+    public void setPendingOrders(long pendingOrders) {
+        this.pendingOrders = pendingOrders;
+    }
+
+    public long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    public void setPendingBytes(long pendingBytes) {
+        this.pendingBytes = pendingBytes;
+    }
+
+    public long getOldestPendingAgeMillis() {
+        return oldestPendingAgeMillis;
+    }
+
+    public void setOldestPendingAgeMillis(long oldestPendingAgeMillis) {
+        this.oldestPendingAgeMillis = oldestPendingAgeMillis;
+    }
+
+    public long getStoredOrders() {
+        return storedOrders;
+    }
+
+    public void setStoredOrders(long storedOrders) {
+        this.storedOrders = storedOrders;
+    }
+
+    public long getRejectedOrders() {
+        return rejectedOrders;
+    }
+
+    public void setRejectedOrders(long rejectedOrders) {
+        this.rejectedOrders = rejectedOrders;
+    }
+}
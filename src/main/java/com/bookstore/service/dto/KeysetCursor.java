@@ -0,0 +1,99 @@
+package com.bookstore.service.dto;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Position in a keyset-paginated book listing: the sort key and id of the
+ * last book returned. Exchanged with clients as an opaque url-safe token.
+ */
+public class KeysetCursor {
+
+    private static final char SEPARATOR = ':';
+
+    private final BookSort sort;
+
+    private final long id;
+
+    private final String key;
+
+    public KeysetCursor(BookSort sort, long id, String key) {
+        this.sort = sort;
+        this.id = id;
+        this.key = key;
+    }
+
+    public static KeysetCursor after(BookSort sort, BookSummaryDTO book) {
+        return new KeysetCursor(sort, book.getBookId(), sort.keyOf(book));
+    }
+
+    public BookSort getSort() {
+        return sort;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return the sort key of the last book, null for ID sort or when the book had no value
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public String encode() {
+        StringBuilder raw = new StringBuilder()
+                .append(sort.name()).append(SEPARATOR).append(id);
+        if (key != null) {
+            raw.append(SEPARATOR).append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}.
+     *
+     * @param token the cursor sent by the client
+     * @param sort the sort requested alongside the cursor
+     * @return the cursor, or null if the token is malformed or was issued for another sort
+     */
+    public static KeysetCursor decode(String token, BookSort sort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(String.valueOf(SEPARATOR), 3);
+            if (parts.length < 2 || BookSort.valueOf(parts[0]) != sort) {
+                return null;
+            }
+            long id = Long.parseLong(parts[1]);
+            String key = parts.length == 3 ? parts[2] : null;
+            if (sort == BookSort.ID && key != null) {
+                return null;
+            }
+            if (sort == BookSort.PRICE && key != null) {
+                new BigDecimal(key);
+            }
+            return new KeysetCursor(sort, id, key);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        KeysetCursor that = (KeysetCursor) obj;
+        return sort == that.sort &&
+                id == that.id &&
+                Objects.equals(key, that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sort, id, key);
+    }
+}
@@ -0,0 +1,39 @@
+package com.bookstore.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Body of a login request. Other properties a client sends along, such as the
+ * rest of the user, are ignored.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class LoginCredentialsDTO {
+
+    private String userName;
+
+    private String userPassword;
+
+    public LoginCredentialsDTO() {
+    }
+
+    public LoginCredentialsDTO(String userName, String userPassword) {
+        this.userName = userName;
+        this.userPassword = userPassword;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
+    public String getUserPassword() {
+        return userPassword;
+    }
+
+    public void setUserPassword(String userPassword) {
+        this.userPassword = userPassword;
+    }
+}
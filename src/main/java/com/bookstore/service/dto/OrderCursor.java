@@ -0,0 +1,60 @@
+package com.bookstore.service.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position in the admin order search, which lists the most recent orders first:
+ * the date and id of the last order returned. Exchanged with clients as an
+ * opaque url-safe token.
+ */
+public class OrderCursor {
+
+    private static final char SEPARATOR = ':';
+
+    private final Date date;
+
+    private final long id;
+
+    public OrderCursor(Date date, long id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    public static OrderCursor after(OrderDTO order) {
+        return new OrderCursor(order.getOrderDate(), order.getOrderId());
+    }
+
+    public Date getDate() {
+        return date;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = String.valueOf(date.getTime()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token the cursor sent by the client
+     * @return the cursor, or null if the token is malformed
+     */
+    public static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return null;
+            }
+            return new OrderCursor(new Date(Long.parseLong(raw.substring(0, separator))),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Order as returned by listings: its header, the ordering user and its lines.
+ */
+public class OrderDTO implements Serializable {
+
+    private Long orderId;
+
+    private Date orderDate;
+
+    private boolean orderStatus;
+
+    private BigDecimal orderPrice;
+
+    private Long userId;
+
+    private String userName;
+
+    private List<OrderLineDTO> books = new ArrayList<>();
+
+    public OrderDTO() {
+    }
+
+    public OrderDTO(Long orderId, Date orderDate, boolean orderStatus, BigDecimal orderPrice,
+                    Long userId, String userName) {
+        this.orderId = orderId;
+        this.orderDate = orderDate;
+        this.orderStatus = orderStatus;
+        this.orderPrice = orderPrice;
+        this.userId = userId;
+        this.userName = userName;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Date getOrderDate() {
+        return orderDate;
+    }
+
+    public void setOrderDate(Date orderDate) {
+        this.orderDate = orderDate;
+    }
+
+    public boolean isOrderStatus() {
+        return orderStatus;
+    }
+
+    public void setOrderStatus(boolean orderStatus) {
+        this.orderStatus = orderStatus;
+    }
+
+    public BigDecimal getOrderPrice() {
+        return orderPrice;
+    }
+
+    public void setOrderPrice(BigDecimal orderPrice) {
+        this.orderPrice = orderPrice;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
+    public List<OrderLineDTO> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<OrderLineDTO> books) {
+        this.books = books;
+    }
+}
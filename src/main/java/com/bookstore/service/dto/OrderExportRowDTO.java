@@ -0,0 +1,130 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Line of an order, flattened with its order, user and book for the export.
+ * An order without lines is exported as one row without book.
+ */
+public class OrderExportRowDTO implements Serializable {
+
+    private Long orderId;
+
+    private Date orderDate;
+
+    private boolean orderStatus;
+
+    private BigDecimal orderPrice;
+
+    private Long userId;
+
+    private String userName;
+
+    private Long bookId;
+
+    private String bookTitle;
+
+    private Long quantity;
+
+    private BigDecimal unitPrice;
+
+    public OrderExportRowDTO() {
+    }
+
+    public OrderExportRowDTO(Long orderId, Date orderDate, boolean orderStatus, BigDecimal orderPrice,
+                             Long userId, String userName, Long bookId, String bookTitle,
+                             Long quantity, BigDecimal unitPrice) {
+        this.orderId = orderId;
+        this.orderDate = orderDate;
+        this.orderStatus = orderStatus;
+        this.orderPrice = orderPrice;
+        this.userId = userId;
+        this.userName = userName;
+        this.bookId = bookId;
+        this.bookTitle = bookTitle;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Date getOrderDate() {
+        return orderDate;
+    }
+
+    public void setOrderDate(Date orderDate) {
+        this.orderDate = orderDate;
+    }
+
+    public boolean isOrderStatus() {
+        return orderStatus;
+    }
+
+    public void setOrderStatus(boolean orderStatus) {
+        this.orderStatus = orderStatus;
+    }
+
+    public BigDecimal getOrderPrice() {
+        return orderPrice;
+    }
+
+    public void setOrderPrice(BigDecimal orderPrice) {
+        this.orderPrice = orderPrice;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getBookTitle() {
+        return bookTitle;
+    }
+
+    public void setBookTitle(String bookTitle) {
+        this.bookTitle = bookTitle;
+    }
+
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+}
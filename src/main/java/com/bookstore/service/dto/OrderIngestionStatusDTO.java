@@ -0,0 +1,89 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * Progress of an order submitted through the ingestion queue.
+ */
+public class OrderIngestionStatusDTO implements Serializable {
+
+    public enum State {
+        /**
+         * Accepted and waiting in the queue.
+         */
+        QUEUED,
+        /**
+         * Written to the database, orderId is set.
+         */
+        STORED,
+        /**
+         * Dropped by the writer, reason tells why.
+         */
+        REJECTED
+    }
+
+    private String handle;
+
+    private State state;
+
+    private Long orderId;
+
+    private String reason;
+
+    public OrderIngestionStatusDTO() {
+    }
+
+    public OrderIngestionStatusDTO(String handle, State state, Long orderId, String reason) {
+        this.handle = handle;
+        this.state = state;
+        this.orderId = orderId;
+        this.reason = reason;
+    }
+
+    /**
+     * Status of an order found in the database.
+     */
+    public OrderIngestionStatusDTO(String handle, Long orderId) {
+        this(handle, State.STORED, orderId, null);
+    }
+
+    public static OrderIngestionStatusDTO queued(String handle) {
+        return new OrderIngestionStatusDTO(handle, State.QUEUED, null, null);
+    }
+
+    public static OrderIngestionStatusDTO rejected(String handle, String reason) {
+        return new OrderIngestionStatusDTO(handle, State.REJECTED, null, reason);
+    }
+
+    public String getHandle() {
+        return handle;
+    }
+
+    public void setHandle(String handle) {
+        this.handle = handle;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
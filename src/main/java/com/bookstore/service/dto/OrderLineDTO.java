@@ -0,0 +1,74 @@
+package com.bookstore.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Line of an order, flattened with the title of the ordered book.
+ */
+public class OrderLineDTO implements Serializable {
+
+    @JsonIgnore
+    private Long orderId;
+
+    private Long bookId;
+
+    private String bookTitle;
+
+    private Long quantity;
+
+    private BigDecimal unitPrice;
+
+    public OrderLineDTO() {
+    }
+
+    public OrderLineDTO(Long orderId, Long bookId, String bookTitle, Long quantity, BigDecimal unitPrice) {
+        this.orderId = orderId;
+        this.bookId = bookId;
+        this.bookTitle = bookTitle;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getBookTitle() {
+        return bookTitle;
+    }
+
+    public void setBookTitle(String bookTitle) {
+        this.bookTitle = bookTitle;
+    }
+
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+}
@@ -0,0 +1,67 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Filters of the admin order search. Null fields do not restrict the search.
+ */
+public class OrderSearchCriteria implements Serializable {
+
+    /**
+     * Inclusive lower bound of the order date.
+     */
+    private Date from;
+
+    /**
+     * Exclusive upper bound of the order date.
+     */
+    private Date to;
+
+    private Boolean status;
+
+    private Long userId;
+
+    private BigDecimal minPrice;
+
+    public Date getFrom() {
+        return from;
+    }
+
+    public void setFrom(Date from) {
+        this.from = from;
+    }
+
+    public Date getTo() {
+        return to;
+    }
+
+    public void setTo(Date to) {
+        this.to = to;
+    }
+
+    public Boolean getStatus() {
+        return status;
+    }
+
+    public void setStatus(Boolean status) {
+        this.status = status;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+}
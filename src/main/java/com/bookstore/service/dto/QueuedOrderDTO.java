@@ -0,0 +1,64 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order accepted by the ingestion queue and not yet written to the database.
+ * Lines carry only the book id and the quantity.
+ */
+public class QueuedOrderDTO implements Serializable {
+
+    private String handle;
+
+    private Long userId;
+
+    /**
+     * When the order was accepted, in epoch milliseconds. Becomes the order date.
+     */
+    private long receivedAt;
+
+    private List<OrderLineDTO> books = new ArrayList<>();
+
+    public QueuedOrderDTO() {
+    }
+
+    public QueuedOrderDTO(String handle, Long userId, long receivedAt) {
+        this.handle = handle;
+        this.userId = userId;
+        this.receivedAt = receivedAt;
+    }
+
+    public String getHandle() {
+        return handle;
+    }
+
+    public void setHandle(String handle) {
+        this.handle = handle;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    public void setReceivedAt(long receivedAt) {
+        this.receivedAt = receivedAt;
+    }
+
+    public List<OrderLineDTO> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<OrderLineDTO> books) {
+        this.books = books;
+    }
+}
@@ -0,0 +1,43 @@
+package com.bookstore.service.dto;
+
+import com.bookstore.model.Order;
+
+import java.io.Serializable;
+
+/**
+ * A new order that was not placed, with the reason.
+ */
+public class RejectedOrderDTO implements Serializable {
+
+    private Order order;
+
+    /**
+     * IllegalArgumentException if the order could not be priced, or
+     * OutOfStockException if its copies were not in stock.
+     */
+    private RuntimeException reason;
+
+    public RejectedOrderDTO() {
+    }
+
+    public RejectedOrderDTO(Order order, RuntimeException reason) {
+        this.order = order;
+        this.reason = reason;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public void setOrder(Order order) {
+        this.order = order;
+    }
+
+    public RuntimeException getReason() {
+        return reason;
+    }
+
+    public void setReason(RuntimeException reason) {
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,36 @@
+package com.bookstore.service.dto;
+
+/**
+ * Periods over which bestsellers are ranked, ending on a given day.
+ */
+public enum SalesPeriod {
+
+    DAY(1),
+    WEEK(7);
+
+    private final int days;
+
+    SalesPeriod(int days) {
+        this.days = days;
+    }
+
+    /**
+     * @return the number of days of the period, its last day included
+     */
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * @param value the request parameter, case insensitive
+     * @return the matching period, or null if there is none
+     */
+    public static SalesPeriod fromParameter(String value) {
+        for (SalesPeriod period : values()) {
+            if (period.name().equalsIgnoreCase(value)) {
+                return period;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.bookstore.service.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in the results of a catalog search, which are ordered by score then
+ * book id: the score and id of the last book returned. The score is kept as
+ * its exact bits so that the next page starts exactly after it. Exchanged with
+ * clients as an opaque url-safe token.
+ */
+public class SearchCursor {
+
+    private static final char SEPARATOR = ':';
+
+    private final float score;
+
+    private final long id;
+
+    public SearchCursor(float score, long id) {
+        this.score = score;
+        this.id = id;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = Integer.toHexString(Float.floatToIntBits(score)) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token the cursor sent by the client
+     * @return the cursor, or null if the token is malformed
+     */
+    public static SearchCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return null;
+            }
+            float score = Float.intBitsToFloat(Integer.parseUnsignedInt(raw.substring(0, separator), 16));
+            if (Float.isNaN(score)) {
+                return null;
+            }
+            return new SearchCursor(score, Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.bookstore.service.dto;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Validators of a representation, read without loading it: the opaque
+ * version used as entity tag and the time of the last change.
+ */
+public class VersionDTO implements Serializable {
+
+    private String version;
+
+    private Date lastModified;
+
+    public VersionDTO() {
+    }
+
+    public VersionDTO(String version, Date lastModified) {
+        this.version = version;
+        this.lastModified = lastModified;
+    }
+
+    public VersionDTO(long version, Date lastModified) {
+        this(String.valueOf(version), lastModified);
+    }
+
+    /**
+     * Validators of an order shown with its user and the books of its lines:
+     * the version changes with the order, with any of its books and with the
+     * name of its user. The time of the last change does not move when a book
+     * is deleted or the user renamed.
+     */
+    public VersionDTO(long orderVersion, Date orderLastModified, String userName,
+                      Long lines, Long bookVersions, Date booksLastModified) {
+        this(orderVersion + "-" + lines + "-" + (bookVersions == null ? 0L : bookVersions) + "-" +
+                        Integer.toHexString(Objects.hashCode(userName)),
+                booksLastModified == null || (orderLastModified != null && orderLastModified.after(booksLastModified))
+                        ? orderLastModified : booksLastModified);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    /**
+     * @return the time of the last change, or null if it is not known
+     */
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Date lastModified) {
+        this.lastModified = lastModified;
+    }
+}
@@ -0,0 +1,191 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.config.ApplicationProperties;
+import com.bookstore.model.BookImageVariant;
+import com.bookstore.repository.BookImageRepository;
+import com.bookstore.service.BookImageService;
+import com.bookstore.service.dto.BookImageDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.security.crypto.codec.Hex;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Service
+public class BookImageServiceImpl implements BookImageService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookImageServiceImpl.class);
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private final BookImageRepository bookImageRepository;
+
+    private final TaskExecutor imageVariantExecutor;
+
+    private final ApplicationProperties.Image properties;
+
+    /**
+     * Source digest of the variant generation queued for each book, so that
+     * concurrent misses on an image without variants schedule it only once.
+     */
+    private final ConcurrentMap<Long, String> pendingVariants = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BookImageServiceImpl(BookImageRepository bookImageRepository,
+                                @Qualifier("imageVariantExecutor") TaskExecutor imageVariantExecutor,
+                                ApplicationProperties applicationProperties) {
+        this.bookImageRepository = bookImageRepository;
+        this.imageVariantExecutor = imageVariantExecutor;
+        this.properties = applicationProperties.getImage();
+    }
+
+    @Override
+    public BookImageDTO findImage(Long bookId) {
+        BookImageDTO image = bookImageRepository.findImage(bookId);
+        if (image == null || image.getDigest() != null) {
+            return image;
+        }
+
+        // images stored before digests were introduced get one on first access
+        MessageDigest digest = sha256();
+        for (long offset = 0; offset < image.getLength(); offset += CHUNK_SIZE) {
+            byte[] chunk = bookImageRepository.readChunk(bookId, offset, CHUNK_SIZE);
+            if (chunk == null) {
+                return null;
+            }
+            digest.update(chunk);
+        }
+        String hex = new String(Hex.encode(digest.digest()));
+        bookImageRepository.updateDigest(bookId, hex);
+        return image.withDigest(hex);
+    }
+
+    @Override
+    public BookImageDTO findImage(Long bookId, Integer width) {
+        BookImageDTO original = findImage(bookId);
+        if (original == null || width == null) {
+            return original;
+        }
+        if (!original.isVariantsGenerated()) {
+            scheduleVariants(bookId, original.getDigest(), null);
+            return original;
+        }
+        for (BookImageDTO variant : bookImageRepository.findVariants(bookId, original.getDigest())) {
+            if (variant.getWidth() >= width) {
+                return variant;
+            }
+        }
+        return original;
+    }
+
+    @Override
+    public void writeImage(BookImageDTO image, long offset, long length, OutputStream out) throws IOException {
+        long position = offset;
+        long end = offset + length;
+        while (position < end) {
+            int chunkLength = (int) Math.min(CHUNK_SIZE, end - position);
+            byte[] chunk = bookImageRepository.readChunk(image, position, chunkLength);
+            if (chunk == null || chunk.length == 0) {
+                throw new IOException("Image of book " + image.getBookId() + " changed while streaming");
+            }
+            out.write(chunk);
+            position += chunk.length;
+        }
+    }
+
+    @Override
+    public void saveImage(Long bookId, byte[] image) {
+        String digest = hex(image);
+        bookImageRepository.updateImage(bookId, image, digest);
+        scheduleVariants(bookId, digest, image);
+    }
+
+    @Override
+    public void deleteImages(Long bookId) {
+        bookImageRepository.deleteVariants(bookId);
+    }
+
+    /**
+     * Inside a transaction the generation starts once the image is committed,
+     * as it runs on another connection.
+     *
+     * @param image the source bytes when at hand, otherwise they are read back in chunks
+     */
+    private void scheduleVariants(Long bookId, String digest, byte[] image) {
+        if (digest.equals(pendingVariants.put(bookId, digest))) {
+            return;
+        }
+        Runnable generation = () -> {
+            try {
+                generateVariants(bookId, digest, image != null ? image : readOriginal(bookId, digest));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not generate image variants of book {}: {}", bookId, e.toString());
+            } finally {
+                pendingVariants.remove(bookId, digest);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            imageVariantExecutor.execute(generation);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    imageVariantExecutor.execute(generation);
+                } else {
+                    pendingVariants.remove(bookId, digest);
+                }
+            }
+        });
+    }
+
+    private void generateVariants(Long bookId, String digest, byte[] image) throws IOException {
+        if (image == null) {
+            return;
+        }
+        List<BookImageVariant> variants =
+                ImageVariantGenerator.generate(image, properties.getVariantWidths(), properties.getJpegQuality());
+        for (BookImageVariant variant : variants) {
+            variant.setDigest(hex(variant.getData()));
+        }
+        if (bookImageRepository.replaceVariants(bookId, digest, variants)) {
+            log.debug("Stored {} image variants of book {}", variants.size(), bookId);
+        }
+    }
+
+    private byte[] readOriginal(Long bookId, String digest) throws IOException {
+        BookImageDTO image = bookImageRepository.findImage(bookId);
+        if (image == null || !digest.equals(image.getDigest())) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) image.getLength());
+        writeImage(image, 0, image.getLength(), out);
+        return out.toByteArray();
+    }
+
+    private static String hex(byte[] bytes) {
+        return new String(Hex.encode(sha256().digest(bytes)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.config.ApplicationProperties;
+import com.bookstore.config.CacheConfiguration;
+import com.bookstore.model.Book;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.service.BookImportService;
+import com.bookstore.service.BookSearchService;
+import com.bookstore.service.BookSuggestionService;
+import com.bookstore.service.dto.BookImportErrorDTO;
+import com.bookstore.service.dto.BookImportReportDTO;
+import com.bookstore.service.dto.FeedFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads a feed row by row and upserts the books by ISBN, a batch of rows per
+ * transaction. Only the current batch is held in memory, whatever the size of
+ * the feed. A batch that fails is written again row by row, so that one bad
+ * row only fails itself.
+ */
+@Service
+public class BookImportServiceImpl implements BookImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportServiceImpl.class);
+
+    private static final List<String> CSV_COLUMNS =
+            Collections.unmodifiableList(Arrays.asList("isbn", "title", "author", "pages", "price", "description"));
+
+    private final BookRepository bookRepository;
+
+    private final BookSearchService bookSearchService;
+
+    private final BookSuggestionService bookSuggestionService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Cache books;
+
+    private final Cache bookPages;
+
+    private final ObjectReader bookReader;
+
+    private final ApplicationProperties.CatalogImport properties;
+
+    @Autowired
+    public BookImportServiceImpl(BookRepository bookRepository,
+                                 BookSearchService bookSearchService,
+                                 BookSuggestionService bookSuggestionService,
+                                 PlatformTransactionManager transactionManager,
+                                 CacheManager cacheManager,
+                                 ObjectMapper objectMapper,
+                                 ApplicationProperties applicationProperties) {
+        this.bookRepository = bookRepository;
+        this.bookSearchService = bookSearchService;
+        this.bookSuggestionService = bookSuggestionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.books = cacheManager.getCache(CacheConfiguration.BOOKS);
+        this.bookPages = cacheManager.getCache(CacheConfiguration.BOOK_PAGES);
+        this.bookReader = objectMapper.readerFor(Book.class);
+        this.properties = applicationProperties.getCatalogImport();
+    }
+
+    @Override
+    public BookImportReportDTO importBooks(Reader feed, FeedFormat format) throws IOException {
+        FeedReader reader = new FeedReader(feed, properties.getMaxRowLength());
+        RowReader rows = format == FeedFormat.CSV ? csvRows(reader) : ndjsonRows(reader);
+
+        long start = System.nanoTime();
+        BookImportReportDTO report = new BookImportReportDTO();
+        List<Row> batch = new ArrayList<>();
+        try {
+            Row row;
+            while ((row = rows.next()) != null) {
+                if (row.error != null) {
+                    fail(report, row, row.error);
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == properties.getBatchSize()) {
+                    write(batch, report);
+                    batch.clear();
+                }
+            }
+        } catch (FeedReader.RowTooLongException e) {
+            report.setComplete(false);
+            fail(report, new Row(e.getLine(), null), e.getMessage() + ", the rest of the feed was not read");
+        }
+        write(batch, report);
+        log.info("Imported {} books, created {}, updated {}, failed {}, in {} ms",
+                report.getCreated() + report.getUpdated() + report.getFailed(), report.getCreated(),
+                report.getUpdated(), report.getFailed(), (System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    /**
+     * Reads the header row, then one book per record.
+     */
+    private RowReader csvRows(FeedReader reader) throws IOException {
+        List<String> header = reader.readCsvRecord();
+        if (header == null) {
+            return () -> null;
+        }
+        String[] columns = new String[header.size()];
+        for (int i = 0; i < columns.length; i++) {
+            String column = header.get(i).trim().toLowerCase(Locale.ROOT);
+            if (column.startsWith("book")) {
+                column = column.substring("book".length());
+            }
+            if (!CSV_COLUMNS.contains(column)) {
+                throw new IllegalArgumentException("Unknown column " + header.get(i));
+            }
+            columns[i] = column;
+        }
+        if (!Arrays.asList(columns).contains("isbn")) {
+            throw new IllegalArgumentException("The isbn column is missing");
+        }
+
+        return () -> {
+            List<String> record;
+            do {
+                record = reader.readCsvRecord();
+            } while (record != null && record.size() == 1 && record.get(0).trim().isEmpty());
+            if (record == null) {
+                return null;
+            }
+            Book book = new Book();
+            Row row = new Row(reader.getRowLine(), book);
+            if (record.size() != columns.length) {
+                row.error = "Expected " + columns.length + " fields, found " + record.size();
+                return row;
+            }
+            for (int i = 0; i < columns.length; i++) {
+                String value = record.get(i).trim();
+                if (value.isEmpty()) {
+                    continue;
+                }
+                try {
+                    set(book, columns[i], value);
+                } catch (NumberFormatException e) {
+                    row.error = "Not a number in column " + columns[i] + ": " + value;
+                    return row;
+                }
+            }
+            return validate(row);
+        };
+    }
+
+    private static void set(Book book, String column, String value) {
+        switch (column) {
+            case "isbn":
+                book.setBookIsbn(value);
+                break;
+            case "title":
+                book.setBookTitle(value);
+                break;
+            case "author":
+                book.setBookAuthor(value);
+                break;
+            case "pages":
+                book.setBookPages(Integer.valueOf(value));
+                break;
+            case "price":
+                book.setBookPrice(new BigDecimal(value));
+                break;
+            default:
+                book.setBookDescription(value);
+        }
+    }
+
+    private RowReader ndjsonRows(FeedReader reader) {
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.trim().isEmpty());
+            if (line == null) {
+                return null;
+            }
+            Row row = new Row(reader.getRowLine(), null);
+            try {
+                row.book = bookReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                row.error = "Not a valid book: " + e.getOriginalMessage();
+                return row;
+            }
+            if (row.book.getBookIsbn() != null) {
+                row.book.setBookIsbn(row.book.getBookIsbn().trim());
+            }
+            return validate(row);
+        };
+    }
+
+    private static Row validate(Row row) {
+        Book book = row.book;
+        if (book.getBookIsbn() == null || book.getBookIsbn().isEmpty()) {
+            row.error = "The ISBN is missing";
+        } else if (book.getBookPrice() != null && book.getBookPrice().signum() < 0) {
+            row.error = "The price is negative";
+        } else if (book.getBookPages() != null && book.getBookPages() < 0) {
+            row.error = "The number of pages is negative";
+        }
+        return row;
+    }
+
+    private void write(List<Row> batch, BookImportReportDTO report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int created;
+        try {
+            created = transactionTemplate.execute(status -> upsert(batch));
+        } catch (DataAccessException e) {
+            log.warn("Could not import a batch of {} books, importing them one by one", batch.size(), e);
+            for (Row row : batch) {
+                try {
+                    created = transactionTemplate.execute(status -> upsert(Collections.singletonList(row)));
+                } catch (DataAccessException rowException) {
+                    fail(report, row, "The book could not be stored");
+                    continue;
+                }
+                report.setCreated(report.getCreated() + created);
+                report.setUpdated(report.getUpdated() + 1 - created);
+            }
+            return;
+        }
+        report.setCreated(report.getCreated() + created);
+        report.setUpdated(report.getUpdated() + batch.size() - created);
+    }
+
+    /**
+     * Creates the books whose ISBN is not stored yet and updates the others with
+     * the values given; the book with the lowest id wins if several share an ISBN.
+     *
+     * @return the number of rows that created a book, the others updated one
+     */
+    private int upsert(List<Row> batch) {
+        Set<String> isbns = new HashSet<>();
+        for (Row row : batch) {
+            isbns.add(row.book.getBookIsbn());
+        }
+        Map<String, Book> booksByIsbn = new HashMap<>();
+        for (Book book : bookRepository.findByBookIsbnIn(isbns)) {
+            booksByIsbn.putIfAbsent(book.getBookIsbn(), book);
+        }
+        List<Long> updatedIds = new ArrayList<>();
+        for (Book book : booksByIsbn.values()) {
+            updatedIds.add(book.getBookId());
+        }
+
+        List<Book> created = new ArrayList<>();
+        for (Row row : batch) {
+            Book book = booksByIsbn.get(row.book.getBookIsbn());
+            if (book == null) {
+                book = new Book();
+                book.setBookIsbn(row.book.getBookIsbn());
+                booksByIsbn.put(book.getBookIsbn(), book);
+                created.add(book);
+            }
+            merge(row.book, book);
+        }
+        // new books get their ids from the pooled generator, so inserts and updates are sent in JDBC batches
+        bookRepository.save(created);
+        bookRepository.flush();
+
+        for (Book book : booksByIsbn.values()) {
+            bookSearchService.index(book);
+            bookSuggestionService.index(book);
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            updatedIds.forEach(books::evict);
+            bookPages.clear();
+        });
+        return created.size();
+    }
+
+    /**
+     * Values missing from the row leave the stored ones alone.
+     */
+    private static void merge(Book row, Book book) {
+        if (row.getBookTitle() != null) {
+            book.setBookTitle(row.getBookTitle());
+        }
+        if (row.getBookAuthor() != null) {
+            book.setBookAuthor(row.getBookAuthor());
+        }
+        if (row.getBookPages() != null) {
+            book.setBookPages(row.getBookPages());
+        }
+        if (row.getBookPrice() != null) {
+            book.setBookPrice(row.getBookPrice());
+        }
+        if (row.getBookDescription() != null) {
+            book.setBookDescription(row.getBookDescription());
+        }
+    }
+
+    private void fail(BookImportReportDTO report, Row row, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < properties.getMaxReportedErrors()) {
+            String isbn = row.book == null ? null : row.book.getBookIsbn();
+            report.getErrors().add(new BookImportErrorDTO(row.line, isbn, message));
+        }
+    }
+
+    private interface RowReader {
+
+        /**
+         * @return the next row, or null at the end of the feed
+         */
+        Row next() throws IOException;
+    }
+
+    private static class Row {
+
+        private final long line;
+
+        private Book book;
+
+        private String error;
+
+        Row(long line, Book book) {
+            this.line = line;
+            this.book = book;
+        }
+    }
+}
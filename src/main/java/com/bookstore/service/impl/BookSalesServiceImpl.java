@@ -0,0 +1,171 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.config.ApplicationProperties;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderBook;
+import com.bookstore.repository.BookSalesRepository;
+import com.bookstore.service.BookSalesService;
+import com.bookstore.service.dto.BestsellerDTO;
+import com.bookstore.service.dto.SalesPeriod;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolls the sales of books up by day. Orders only add their copies to counters
+ * in memory; a background thread flushes the counters to the book_sales_daily
+ * table in one short transaction, so checkouts of a bestseller never wait for
+ * its row. Rankings read the rollups of their period, whatever the size of the
+ * order history, and are kept until the next flush.
+ * <p>
+ * Counters not yet flushed are lost if the application crashes; they are
+ * flushed when it stops.
+ */
+@Service
+public class BookSalesServiceImpl implements BookSalesService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSalesServiceImpl.class);
+
+    private final BookSalesRepository bookSalesRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.Sales properties;
+
+    private final Cache<String, List<BestsellerDTO>> bestsellers;
+
+    /**
+     * Copies sold by day and book since the last flush, guarded by this.
+     */
+    private Map<LocalDate, Map<Long, Long>> pending = new HashMap<>();
+
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public BookSalesServiceImpl(BookSalesRepository bookSalesRepository,
+                                PlatformTransactionManager transactionManager,
+                                ApplicationProperties applicationProperties) {
+        this.bookSalesRepository = bookSalesRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getSales();
+        // other instances flush too, so rankings also expire
+        this.bestsellers = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(properties.getFlushIntervalMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (bookSalesRepository.isEmpty()) {
+            long start = System.nanoTime();
+            int rows = transactionTemplate.execute(status -> bookSalesRepository.rollUpOrders());
+            log.info("Rolled up the order history into {} daily sales in {} ms", rows,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-sales");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, properties.getFlushIntervalMillis(),
+                properties.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(30, TimeUnit.SECONDS);
+        flush();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BestsellerDTO> findBestsellers(SalesPeriod period, LocalDate lastDay, int size) {
+        int bounded = Math.min(size, properties.getMaxBestsellers());
+        LocalDate firstDay = lastDay.minusDays(period.getDays() - 1);
+        return bestsellers.get(period + "/" + lastDay + "/" + bounded,
+                key -> bookSalesRepository.findBestsellers(firstDay, lastDay, bounded));
+    }
+
+    @Override
+    public void addSales(Order order) {
+        record(order, 1);
+    }
+
+    @Override
+    public void removeSales(Order order) {
+        record(order, -1);
+    }
+
+    private void record(Order order, long sign) {
+        if (order.getOrderDate() == null) {
+            return;
+        }
+        LocalDate day = order.getOrderDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        Map<Long, Long> quantities = new HashMap<>();
+        for (OrderBook line : order.getBooks()) {
+            if (line.getBook() != null && line.getBook().getBookId() != null && line.getQuantity() != null) {
+                quantities.merge(line.getBook().getBookId(), sign * line.getQuantity(), Long::sum);
+            }
+        }
+        TransactionCallbacks.afterCommit(() -> add(day, quantities));
+    }
+
+    private synchronized void add(LocalDate day, Map<Long, Long> quantities) {
+        Map<Long, Long> sales = pending.computeIfAbsent(day, d -> new HashMap<>());
+        quantities.forEach((bookId, quantity) -> {
+            if (sales.merge(bookId, quantity, Long::sum) == 0L) {
+                sales.remove(bookId);
+            }
+        });
+        if (sales.isEmpty()) {
+            pending.remove(day);
+        }
+    }
+
+    /**
+     * Writes the counters to the rollups; they are only swapped out under the
+     * lock. If the write fails, they are added back and retried on the next flush.
+     */
+    void flush() {
+        Map<LocalDate, Map<Long, Long>> flushed;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            flushed = pending;
+            pending = new HashMap<>();
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                flushed.forEach(bookSalesRepository::add);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not flush the sales of {} days, retrying in {} ms", flushed.size(),
+                    properties.getFlushIntervalMillis(), e);
+            flushed.forEach(this::add);
+            return;
+        }
+        bestsellers.invalidateAll();
+    }
+}
@@ -0,0 +1,727 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.service.dto.SearchCursor;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory inverted index over the title, author, ISBN and description of the
+ * books.
+ * <p>
+ * Every indexed book gets an ordinal, handed out in increasing order. A term
+ * maps to its postings, one entry per book containing it: the ordinal of the
+ * book and the fields the term occurs in. Postings therefore stay sorted by
+ * appending. Long postings keep the ordinals of each field mask apart, so
+ * that a query walks the books from the best scoring fields down and stops
+ * as soon as the rest can no longer make it into the page. A book indexed
+ * again gets a new ordinal and its old one is tombstoned; tombstones are
+ * dropped and ordinals renumbered once they make up a quarter of the index.
+ * Terms are kept sorted so that a prefix is a range.
+ * <p>
+ * Queries match books containing every term, the last one also as a prefix
+ * of at least two characters. A prefix expands to its 64 completions found
+ * in the most books; rarer completions are left out. The expansions of
+ * prefixes with many completions are cached.
+ * A term scores its idf times the weights of the fields it occurs in, halved
+ * for prefix matches. Results are ordered by score, then book id.
+ */
+class BookSearchIndex {
+
+    static final int TITLE = 1;
+
+    static final int AUTHOR = 2;
+
+    static final int ISBN = 4;
+
+    static final int DESCRIPTION = 8;
+
+    private static final int FIELD_BITS = 4;
+
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+
+    /**
+     * Weight of a term occurring in the given set of fields, indexed by field mask.
+     */
+    private static final float[] FIELD_WEIGHTS = new float[1 << FIELD_BITS];
+
+    static {
+        for (int fields = 0; fields < FIELD_WEIGHTS.length; fields++) {
+            FIELD_WEIGHTS[fields] = ((fields & TITLE) != 0 ? 3f : 0f)
+                    + ((fields & AUTHOR) != 0 ? 2f : 0f)
+                    + ((fields & ISBN) != 0 ? 4f : 0f)
+                    + ((fields & DESCRIPTION) != 0 ? 1f : 0f);
+        }
+    }
+
+    /**
+     * Field masks from the highest weight down.
+     */
+    private static final int[] FIELDS_BY_WEIGHT = IntStream.rangeClosed(1, FIELD_MASK).boxed()
+            .sorted((a, b) -> Float.compare(FIELD_WEIGHTS[b], FIELD_WEIGHTS[a]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+
+    private static final float PREFIX_FACTOR = 0.5f;
+
+    /**
+     * Shorter prefixes would expand to a large share of the dictionary.
+     */
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    /**
+     * A prefix expands to this many of its completions, the most frequent ones.
+     */
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    /**
+     * Prefixes with at least this many completions keep their expansions
+     * until one of the completions changes.
+     */
+    private static final int MIN_CACHED_COMPLETIONS = 1024;
+
+    private static final int MAX_QUERY_TERMS = 10;
+
+    /**
+     * Longer postings are split into tiers by field mask.
+     */
+    private static final int MIN_TIERED_POSTINGS = 64;
+
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 1024;
+
+    private static final long REMOVED = Long.MIN_VALUE;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern ISBN_QUERY = Pattern.compile("[0-9][0-9xX -]{8,}");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+
+    /**
+     * Expansions of the prefixes with many completions; readers fill it under
+     * the read lock.
+     */
+    private final Map<String, List<Postings>> expansionCache = new ConcurrentHashMap<>();
+
+    /**
+     * Book id of each ordinal, or REMOVED.
+     */
+    private long[] bookIds = new long[1024];
+
+    private int nextOrdinal;
+
+    private int tombstones;
+
+    /**
+     * Indexes the book, replacing what was indexed for it before.
+     */
+    void put(long bookId, String title, String author, String isbn, String description) {
+        Map<String, Integer> fieldsByTerm = new HashMap<>();
+        addTerms(fieldsByTerm, title, TITLE);
+        addTerms(fieldsByTerm, author, AUTHOR);
+        String compactIsbn = compactIsbn(isbn);
+        if (!compactIsbn.isEmpty()) {
+            fieldsByTerm.merge(compactIsbn, ISBN, (a, b) -> a | b);
+        }
+        addTerms(fieldsByTerm, description, DESCRIPTION);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(bookId);
+            if (nextOrdinal == bookIds.length) {
+                bookIds = Arrays.copyOf(bookIds, bookIds.length * 2);
+            }
+            int ordinal = nextOrdinal++;
+            bookIds[ordinal] = bookId;
+            ordinals.put(bookId, ordinal);
+            for (Map.Entry<String, Integer> term : fieldsByTerm.entrySet()) {
+                terms.computeIfAbsent(term.getKey(), key -> new Postings())
+                        .add(ordinal, term.getValue());
+            }
+            forgetExpansions(fieldsByTerm.keySet());
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long bookId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(bookId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param after the position of the last hit of the previous page, or null
+     * @param limit the maximum number of hits returned
+     * @return the best hits after the cursor, best first
+     */
+    List<Hit> search(String query, SearchCursor after, int limit) {
+        List<String> queryTerms = queryTerms(query);
+        if (queryTerms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<TermMatch> matches = new ArrayList<>();
+            for (int i = 0; i < queryTerms.size(); i++) {
+                TermMatch match = match(queryTerms.get(i), i == queryTerms.size() - 1);
+                if (match.postings.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                matches.add(match);
+            }
+            // walk the rarest term, the others only narrow it down
+            matches.sort(Comparator.comparingLong(TermMatch::entryCount));
+            return top(matches.get(0), matches.subList(1, matches.size()), after, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private TermMatch match(String term, boolean prefix) {
+        TermMatch match = new TermMatch();
+        Postings exact = terms.get(term);
+        if (exact != null) {
+            match.add(exact, idf(exact));
+        }
+        if (prefix && term.length() >= MIN_PREFIX_LENGTH) {
+            List<Postings> expansions = expansionCache.get(term);
+            if (expansions == null) {
+                expansions = expand(term);
+            }
+            for (Postings postings : expansions) {
+                match.add(postings, idf(postings) * PREFIX_FACTOR);
+            }
+        }
+        return match;
+    }
+
+    /**
+     * The most frequent completions of the prefix, cached when there are many.
+     */
+    private List<Postings> expand(String prefix) {
+        // the least frequent of the most frequent completions at the head
+        PriorityQueue<Postings> expansions = new PriorityQueue<>(MAX_PREFIX_EXPANSIONS + 1,
+                Comparator.comparingInt(postings -> postings.size));
+        int completions = 0;
+        for (Postings postings : terms.subMap(prefix, false, prefix + Character.MAX_VALUE, false).values()) {
+            completions++;
+            if (expansions.size() < MAX_PREFIX_EXPANSIONS || postings.size > expansions.peek().size) {
+                expansions.add(postings);
+                if (expansions.size() > MAX_PREFIX_EXPANSIONS) {
+                    expansions.poll();
+                }
+            }
+        }
+        List<Postings> expanded = new ArrayList<>(expansions);
+        if (completions >= MIN_CACHED_COMPLETIONS) {
+            expansionCache.put(prefix, expanded);
+        }
+        return expanded;
+    }
+
+    /**
+     * Drops the cached expansions of the prefixes of terms whose postings changed.
+     */
+    private void forgetExpansions(Set<String> changed) {
+        if (expansionCache.isEmpty()) {
+            return;
+        }
+        for (String term : changed) {
+            for (int length = MIN_PREFIX_LENGTH; length < term.length(); length++) {
+                expansionCache.remove(term.substring(0, length));
+            }
+        }
+    }
+
+    private float idf(Postings postings) {
+        return (float) Math.log(1.0 + (double) Math.max(1, ordinals.size()) / postings.size);
+    }
+
+    /**
+     * Walks the blocks of the first term from the best score down and stops
+     * once a block, even with the best score of every other term added, can
+     * no longer beat the worst of the hits found so far.
+     */
+    private List<Hit> top(TermMatch first, List<TermMatch> others, SearchCursor after, int limit) {
+        float[] otherMaxScores = new float[others.size()];
+        for (int i = 0; i < otherMaxScores.length; i++) {
+            otherMaxScores[i] = others.get(i).maxScore();
+        }
+        TopHits top = new TopHits(others, after, limit);
+        // a book in several expansions scores the best of them, that is the first block it shows up in
+        BitSet seen = first.postings.size() > 1 ? new BitSet() : null;
+        for (Block block : first.blocks()) {
+            float bound = block.score;
+            for (float otherMaxScore : otherMaxScores) {
+                bound += otherMaxScore;
+            }
+            if (top.worst != null && bound < top.worst.score) {
+                break;
+            }
+            block.postings.forEach(block.fields, ordinal -> {
+                if (seen != null) {
+                    if (seen.get(ordinal)) {
+                        return;
+                    }
+                    seen.set(ordinal);
+                }
+                top.offer(ordinal, block.score);
+            });
+        }
+        List<Hit> hits = new ArrayList<>(top.best);
+        hits.sort(Hit::compare);
+        return hits;
+    }
+
+    private void removeLocked(long bookId) {
+        Integer ordinal = ordinals.remove(bookId);
+        if (ordinal != null) {
+            bookIds[ordinal] = REMOVED;
+            tombstones++;
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (tombstones < MIN_TOMBSTONES_TO_COMPACT || tombstones * 4L < nextOrdinal) {
+            return;
+        }
+        int[] renumbered = new int[nextOrdinal];
+        int live = 0;
+        for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+            if (bookIds[ordinal] == REMOVED) {
+                renumbered[ordinal] = -1;
+                continue;
+            }
+            renumbered[ordinal] = live;
+            bookIds[live] = bookIds[ordinal];
+            ordinals.put(bookIds[live], live);
+            live++;
+        }
+        for (Iterator<Postings> it = terms.values().iterator(); it.hasNext(); ) {
+            Postings postings = it.next();
+            postings.renumber(renumbered);
+            if (postings.size == 0) {
+                it.remove();
+            }
+        }
+        nextOrdinal = live;
+        tombstones = 0;
+        expansionCache.clear();
+    }
+
+    private static void addTerms(Map<String, Integer> fieldsByTerm, String text, int field) {
+        for (String term : tokenize(text)) {
+            fieldsByTerm.merge(term, field, (a, b) -> a | b);
+        }
+    }
+
+    /**
+     * The query as terms, read as a single ISBN when it looks like one.
+     */
+    static List<String> queryTerms(String query) {
+        if (query == null) {
+            return Collections.emptyList();
+        }
+        String trimmed = query.trim();
+        if (ISBN_QUERY.matcher(trimmed).matches()) {
+            return Collections.singletonList(compactIsbn(trimmed));
+        }
+        Set<String> distinct = new LinkedHashSet<>(tokenize(trimmed));
+        List<String> queryTerms = new ArrayList<>(distinct);
+        return queryTerms.size() > MAX_QUERY_TERMS ? queryTerms.subList(0, MAX_QUERY_TERMS) : queryTerms;
+    }
+
+    /**
+     * Lower-cased runs of letters and digits, accents removed.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static String compactIsbn(String isbn) {
+        if (isbn == null) {
+            return "";
+        }
+        StringBuilder compact = new StringBuilder(isbn.length());
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                compact.append(Character.toLowerCase(c));
+            }
+        }
+        return compact.toString();
+    }
+
+    static class Hit {
+
+        private final long bookId;
+
+        private final float score;
+
+        Hit(long bookId, float score) {
+            this.bookId = bookId;
+            this.score = score;
+        }
+
+        long getBookId() {
+            return bookId;
+        }
+
+        float getScore() {
+            return score;
+        }
+
+        /**
+         * Whether a hit with the first score and id comes before one with the second.
+         */
+        static boolean before(float score, long bookId, float otherScore, long otherBookId) {
+            return score > otherScore || (score == otherScore && bookId < otherBookId);
+        }
+
+        static int compare(Hit a, Hit b) {
+            return before(a.score, a.bookId, b.score, b.bookId) ? -1 : before(b.score, b.bookId, a.score, a.bookId) ? 1 : 0;
+        }
+    }
+
+    /**
+     * Postings of one term. Short ones keep ordinal and field mask per entry,
+     * sorted by ordinal; longer ones keep the ordinals of each field mask
+     * apart, each tier sorted by ordinal.
+     */
+    private static class Postings {
+
+        private int[] entries = new int[2];
+
+        private int[][] tiers;
+
+        private int[] tierSizes;
+
+        /**
+         * Bit per field mask occurring in the postings.
+         */
+        private int fieldMasks;
+
+        private int size;
+
+        void add(int ordinal, int fields) {
+            fieldMasks |= 1 << fields;
+            if (tiers != null) {
+                tiers[fields] = append(tiers[fields], tierSizes[fields]++, ordinal);
+            } else {
+                entries = append(entries, size, ordinal << FIELD_BITS | fields);
+                if (size + 1 > MIN_TIERED_POSTINGS) {
+                    split(size + 1);
+                }
+            }
+            size++;
+        }
+
+        private void split(int count) {
+            tiers = new int[FIELD_MASK + 1][];
+            tierSizes = new int[FIELD_MASK + 1];
+            for (int i = 0; i < count; i++) {
+                int fields = entries[i] & FIELD_MASK;
+                tiers[fields] = append(tiers[fields], tierSizes[fields]++, entries[i] >>> FIELD_BITS);
+            }
+            entries = null;
+        }
+
+        private static int[] append(int[] array, int size, int value) {
+            if (array == null) {
+                array = new int[2];
+            } else if (size == array.length) {
+                array = Arrays.copyOf(array, size + (size >> 1) + 1);
+            }
+            array[size] = value;
+            return array;
+        }
+
+        /**
+         * @return the fields the term occurs in for the ordinal, or 0
+         */
+        int fields(int ordinal) {
+            if (tiers == null) {
+                int low = 0;
+                int high = size - 1;
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    int midOrdinal = entries[mid] >>> FIELD_BITS;
+                    if (midOrdinal < ordinal) {
+                        low = mid + 1;
+                    } else if (midOrdinal > ordinal) {
+                        high = mid - 1;
+                    } else {
+                        return entries[mid] & FIELD_MASK;
+                    }
+                }
+                return 0;
+            }
+            for (int fields = 1; fields <= FIELD_MASK; fields++) {
+                if (tierSizes[fields] > 0 && Arrays.binarySearch(tiers[fields], 0, tierSizes[fields], ordinal) >= 0) {
+                    return fields;
+                }
+            }
+            return 0;
+        }
+
+        boolean contains(int fields) {
+            return (fieldMasks & 1 << fields) != 0;
+        }
+
+        float maxWeight() {
+            for (int fields : FIELDS_BY_WEIGHT) {
+                if (contains(fields)) {
+                    return FIELD_WEIGHTS[fields];
+                }
+            }
+            return 0f;
+        }
+
+        /**
+         * Passes the ordinals of the entries with exactly these fields, in increasing order.
+         */
+        void forEach(int fields, IntConsumer action) {
+            if (tiers != null) {
+                int[] tier = tiers[fields];
+                for (int i = 0; i < tierSizes[fields]; i++) {
+                    action.accept(tier[i]);
+                }
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                if ((entries[i] & FIELD_MASK) == fields) {
+                    action.accept(entries[i] >>> FIELD_BITS);
+                }
+            }
+        }
+
+        void renumber(int[] renumbered) {
+            if (tiers == null) {
+                int kept = 0;
+                fieldMasks = 0;
+                for (int i = 0; i < size; i++) {
+                    int ordinal = renumbered[entries[i] >>> FIELD_BITS];
+                    if (ordinal >= 0) {
+                        entries[kept++] = ordinal << FIELD_BITS | (entries[i] & FIELD_MASK);
+                        fieldMasks |= 1 << (entries[i] & FIELD_MASK);
+                    }
+                }
+                size = kept;
+                if (entries.length > 2 * size + 2) {
+                    entries = Arrays.copyOf(entries, size);
+                }
+                return;
+            }
+            size = 0;
+            fieldMasks = 0;
+            for (int fields = 1; fields <= FIELD_MASK; fields++) {
+                int[] tier = tiers[fields];
+                int kept = 0;
+                for (int i = 0; i < tierSizes[fields]; i++) {
+                    int ordinal = renumbered[tier[i]];
+                    if (ordinal >= 0) {
+                        tier[kept++] = ordinal;
+                    }
+                }
+                tierSizes[fields] = kept;
+                if (kept > 0) {
+                    fieldMasks |= 1 << fields;
+                    if (tier.length > 2 * kept + 2) {
+                        tiers[fields] = Arrays.copyOf(tier, kept);
+                    }
+                } else {
+                    tiers[fields] = null;
+                }
+                size += kept;
+            }
+        }
+    }
+
+    /**
+     * The postings matching one query term, with the idf of each, already
+     * halved for prefix matches.
+     */
+    private static class TermMatch {
+
+        private final List<Postings> postings = new ArrayList<>();
+
+        private final List<Float> idfs = new ArrayList<>();
+
+        void add(Postings entries, float idf) {
+            postings.add(entries);
+            idfs.add(idf);
+        }
+
+        long entryCount() {
+            long count = 0;
+            for (Postings entries : postings) {
+                count += entries.size;
+            }
+            return count;
+        }
+
+        /**
+         * The score of the book for this term, the best of the postings it is in, or 0.
+         */
+        float score(int ordinal) {
+            float best = 0f;
+            for (int p = 0; p < postings.size(); p++) {
+                int fields = postings.get(p).fields(ordinal);
+                if (fields != 0) {
+                    best = Math.max(best, idfs.get(p) * FIELD_WEIGHTS[fields]);
+                }
+            }
+            return best;
+        }
+
+        float maxScore() {
+            float max = 0f;
+            for (int p = 0; p < postings.size(); p++) {
+                max = Math.max(max, idfs.get(p) * postings.get(p).maxWeight());
+            }
+            return max;
+        }
+
+        /**
+         * The entries of each postings and field mask, best score first.
+         */
+        List<Block> blocks() {
+            List<Block> blocks = new ArrayList<>();
+            for (int p = 0; p < postings.size(); p++) {
+                for (int fields = 1; fields <= FIELD_MASK; fields++) {
+                    if (postings.get(p).contains(fields)) {
+                        blocks.add(new Block(postings.get(p), fields, idfs.get(p) * FIELD_WEIGHTS[fields]));
+                    }
+                }
+            }
+            blocks.sort((a, b) -> Float.compare(b.score, a.score));
+            return blocks;
+        }
+    }
+
+    /**
+     * The entries of one postings occurring in exactly the given fields, which
+     * all score the same for the term.
+     */
+    private static class Block {
+
+        private final Postings postings;
+
+        private final int fields;
+
+        private final float score;
+
+        Block(Postings postings, int fields, float score) {
+            this.postings = postings;
+            this.fields = fields;
+            this.score = score;
+        }
+    }
+
+    /**
+     * The best hits after the cursor among the books offered with the score
+     * of the first term, kept only when they match the other terms too.
+     */
+    private class TopHits {
+
+        private final List<TermMatch> others;
+
+        private final SearchCursor after;
+
+        private final int limit;
+
+        // the worst of the best hits so far at the head
+        private final PriorityQueue<Hit> best;
+
+        private Hit worst;
+
+        TopHits(List<TermMatch> others, SearchCursor after, int limit) {
+            this.others = others;
+            this.after = after;
+            this.limit = limit;
+            best = new PriorityQueue<>(limit + 1, (a, b) -> -Hit.compare(a, b));
+        }
+
+        void offer(int ordinal, float score) {
+            long bookId = bookIds[ordinal];
+            if (bookId == REMOVED) {
+                return;
+            }
+            for (TermMatch other : others) {
+                float otherScore = other.score(ordinal);
+                if (otherScore == 0f) {
+                    return;
+                }
+                score += otherScore;
+            }
+            if (after != null && !Hit.before(after.getScore(), after.getId(), score, bookId)) {
+                return;
+            }
+            if (worst != null && !Hit.before(score, bookId, worst.score, worst.bookId)) {
+                return;
+            }
+            best.add(new Hit(bookId, score));
+            if (best.size() > limit) {
+                best.poll();
+            }
+            if (best.size() == limit) {
+                worst = best.peek();
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.model.Book;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.service.BookSearchService;
+import com.bookstore.service.dto.BookSummaryDTO;
+import com.bookstore.service.dto.BookTextDTO;
+import com.bookstore.service.dto.CursorPage;
+import com.bookstore.service.dto.SearchCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Searches the catalog through an in-memory index, built from the database at
+ * startup and kept up to date by the book writes of BookServiceImpl. Only the
+ * summaries of the books returned are read from the database.
+ */
+@Service
+public class BookSearchServiceImpl implements BookSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchServiceImpl.class);
+
+    /**
+     * Books read per statement while building the index.
+     */
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+
+    private final BookSearchIndex index = new BookSearchIndex();
+
+    @Autowired
+    public BookSearchServiceImpl(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @PostConstruct
+    public void buildIndex() {
+        long start = System.nanoTime();
+        long afterId = 0L;
+        List<BookTextDTO> texts;
+        do {
+            texts = bookRepository.findTextsAfterId(afterId, new PageRequest(0, LOAD_BATCH_SIZE));
+            for (BookTextDTO text : texts) {
+                index.put(text.getBookId(), text.getBookTitle(), text.getBookAuthor(),
+                        text.getBookIsbn(), text.getBookDescription());
+                afterId = text.getBookId();
+            }
+        } while (texts.size() == LOAD_BATCH_SIZE);
+        log.info("Indexed {} books for search in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookSummaryDTO> search(String query, SearchCursor cursor, int size) {
+        // fetch one extra hit to learn whether a next page exists
+        List<BookSearchIndex.Hit> hits = index.search(query, cursor, size + 1);
+        String nextCursor = null;
+        if (hits.size() > size) {
+            hits = hits.subList(0, size);
+            BookSearchIndex.Hit last = hits.get(size - 1);
+            nextCursor = new SearchCursor(last.getScore(), last.getBookId()).encode();
+        }
+        if (hits.isEmpty()) {
+            return new CursorPage<>(new ArrayList<>(), null);
+        }
+
+        List<Long> bookIds = new ArrayList<>(hits.size());
+        for (BookSearchIndex.Hit hit : hits) {
+            bookIds.add(hit.getBookId());
+        }
+        Map<Long, BookSummaryDTO> summariesById = new HashMap<>();
+        for (BookSummaryDTO summary : bookRepository.findSummariesByBookIdIn(bookIds)) {
+            summariesById.put(summary.getBookId(), summary);
+        }
+        // in the order of the hits; a book deleted by a running transaction is skipped
+        List<BookSummaryDTO> books = new ArrayList<>(hits.size());
+        for (Long bookId : bookIds) {
+            BookSummaryDTO summary = summariesById.get(bookId);
+            if (summary != null) {
+                books.add(summary);
+            }
+        }
+        return new CursorPage<>(books, nextCursor);
+    }
+
+    @Override
+    public void index(Book book) {
+        Long bookId = book.getBookId();
+        String title = book.getBookTitle();
+        String author = book.getBookAuthor();
+        String isbn = book.getBookIsbn();
+        String description = book.getBookDescription();
+        TransactionCallbacks.afterCommit(() -> index.put(bookId, title, author, isbn, description));
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        TransactionCallbacks.afterCommit(() -> index.remove(bookId));
+    }
+}
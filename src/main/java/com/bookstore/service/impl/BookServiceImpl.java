@@ -1,11 +1,32 @@
 package com.bookstore.service.impl;
 
+import com.bookstore.config.CacheConfiguration;
+import com.bookstore.config.RoutingDataSource;
 import com.bookstore.model.Book;
 import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.BookStockRepository;
+import com.bookstore.service.BookImageService;
+import com.bookstore.service.BookSearchService;
 import com.bookstore.service.BookService;
+import com.bookstore.service.BookSuggestionService;
+import com.bookstore.service.dto.BookSort;
+import com.bookstore.service.dto.BookSummaryDTO;
+import com.bookstore.service.dto.CursorPage;
+import com.bookstore.service.dto.KeysetCursor;
+import com.bookstore.service.dto.VersionDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -13,33 +34,164 @@ public class BookServiceImpl implements BookService {
 
     private final BookRepository bookRepository;
 
+    private final BookImageService bookImageService;
+
+    private final BookSearchService bookSearchService;
+
+    private final BookSuggestionService bookSuggestionService;
+
+    private final BookStockRepository bookStockRepository;
+
+    private final Cache books;
+
     @Autowired
-    public BookServiceImpl(BookRepository bookRepository) {
+    public BookServiceImpl(BookRepository bookRepository, BookImageService bookImageService,
+                           BookSearchService bookSearchService, BookSuggestionService bookSuggestionService,
+                           BookStockRepository bookStockRepository, CacheManager cacheManager) {
         this.bookRepository = bookRepository;
+        this.bookImageService = bookImageService;
+        this.bookSearchService = bookSearchService;
+        this.bookSuggestionService = bookSuggestionService;
+        this.bookStockRepository = bookStockRepository;
+        this.books = cacheManager.getCache(CacheConfiguration.BOOKS);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Book> findAllBooks() {
         return bookRepository.findAll();
     }
 
+    /**
+     * Cached loaders read from the primary: a page or book read from a lagging
+     * replica would be served, and validate conditional requests, until it expires.
+     */
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(CacheConfiguration.BOOK_PAGES)
+    public CursorPage<BookSummaryDTO> findBookPage(BookSort sort, KeysetCursor cursor, int size) {
+        return RoutingDataSource.readFromPrimary(() -> loadBookPage(sort, cursor, size));
+    }
+
+    private CursorPage<BookSummaryDTO> loadBookPage(BookSort sort, KeysetCursor cursor, int size) {
+        // fetch one extra row to learn whether a next page exists
+        Pageable limit = new PageRequest(0, size + 1);
+        long afterId = cursor == null ? 0L : cursor.getId();
+        String key = cursor == null ? null : cursor.getKey();
+
+        List<BookSummaryDTO> books;
+        switch (sort) {
+            case TITLE:
+                books = bookRepository.findSummariesAfterTitle(key, afterId, limit);
+                break;
+            case PRICE:
+                books = bookRepository.findSummariesAfterPrice(key == null ? null : new BigDecimal(key), afterId, limit);
+                break;
+            default:
+                books = bookRepository.findSummariesAfterId(afterId, limit);
+        }
+
+        if (books.size() <= size) {
+            return new CursorPage<>(books, null);
+        }
+        books = new ArrayList<>(books.subList(0, size));
+        String nextCursor = KeysetCursor.after(sort, books.get(size - 1)).encode();
+        return new CursorPage<>(books, nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfiguration.BOOKS, unless = "#result == null")
     public Book findBookById(Long bookId) {
-        return bookRepository.findOne(bookId);
+        return RoutingDataSource.readFromPrimary(() -> bookRepository.findOne(bookId));
+    }
+
+    /**
+     * Read from the cached book when there is one, the cache being evicted on
+     * every write, and with a version-only query on the primary otherwise.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public VersionDTO findBookVersion(Long bookId) {
+        Cache.ValueWrapper cached = books.get(bookId);
+        if (cached != null) {
+            Book book = (Book) cached.get();
+            return new VersionDTO(book.getBookVersion(), book.getBookLastModified());
+        }
+        return RoutingDataSource.readFromPrimary(() -> bookRepository.findVersionByBookId(bookId));
     }
 
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfiguration.BOOKS, key = "#book.bookId"),
+            @CacheEvict(cacheNames = CacheConfiguration.BOOK_PAGES, allEntries = true)
+    })
     public Book updateBook(Book book) {
-        return bookRepository.save(book);
+        Book result = bookRepository.findOne(book.getBookId());
+        if (result == null) {
+            result = bookRepository.saveAndFlush(book);
+        } else {
+            copy(book, result);
+            bookRepository.flush();
+        }
+        saveImage(result, book.getBookImage());
+        bookSearchService.index(result);
+        bookSuggestionService.index(result);
+        return result;
     }
 
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfiguration.BOOKS, key = "#book.bookId"),
+            @CacheEvict(cacheNames = CacheConfiguration.BOOK_PAGES, allEntries = true)
+    })
     public void deleteBook(Book book) {
-        bookRepository.delete(book);
+        bookImageService.deleteImages(book.getBookId());
+        bookStockRepository.delete(book.getBookId());
+        // by id, the book given may come from the cache and be older than the stored one
+        bookRepository.delete(book.getBookId());
+        bookSearchService.remove(book.getBookId());
+        bookSuggestionService.remove(book.getBookId());
     }
 
+    /**
+     * A new book can land on any cached catalog page, so pages are cleared as a whole.
+     */
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfiguration.BOOK_PAGES, allEntries = true)
     public Book saveBook(Book book) {
-        return bookRepository.save(book);
+        Book result = bookRepository.saveAndFlush(book);
+        saveImage(result, book.getBookImage());
+        bookSearchService.index(result);
+        bookSuggestionService.index(result);
+        return result;
+    }
+
+    /**
+     * The request replaces the values of the stored book; the book is not
+     * merged, which would take its version and its lines from the request.
+     */
+    private static void copy(Book request, Book book) {
+        book.setBookTitle(request.getBookTitle());
+        book.setBookAuthor(request.getBookAuthor());
+        book.setBookPages(request.getBookPages());
+        book.setBookIsbn(request.getBookIsbn());
+        book.setBookPrice(request.getBookPrice());
+        book.setBookDescription(request.getBookDescription());
+        book.setBookImageContentType(request.getBookImageContentType());
+    }
+
+    /**
+     * The image is not part of the entity mapping; a book saved without
+     * image bytes keeps the image it already has. The book must be flushed
+     * first, the image is written with JDBC.
+     */
+    private void saveImage(Book book, byte[] image) {
+        if (image != null) {
+            bookImageService.saveImage(book.getBookId(), image);
+        }
     }
 }
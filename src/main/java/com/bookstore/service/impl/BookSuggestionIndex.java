@@ -0,0 +1,361 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.service.dto.BookSuggestionDTO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntPredicate;
+
+/**
+ * Prefix index of titles and authors, answering the heaviest completions of
+ * a prefix.
+ * <p>
+ * The entries are sorted by their folded text, which is packed into a single
+ * char array, so that the completions of a prefix are a contiguous range found
+ * by binary search. A segment tree over the weights holds the heaviest entry of
+ * every power-of-two block, from which the k heaviest of a range are read in
+ * O(k log k log n) without looking at the rest of it. Everything lives in a
+ * few primitive arrays, with no object per entry.
+ * <p>
+ * The texts of an index never change. Weights change in place, a change
+ * walking up the tree in O(log n); one thread at a time may change them while
+ * completions read without locking, a completion running meanwhile possibly
+ * ranking by a weight one change behind. Texts are added and removed by
+ * merging into a new index, which takes over the entries already sorted.
+ */
+class BookSuggestionIndex {
+
+    private static final BookSuggestionDTO.Type[] TYPES = BookSuggestionDTO.Type.values();
+
+    static final BookSuggestionIndex EMPTY = build(Collections.emptyList());
+
+    private final int size;
+
+    /**
+     * Folded texts of the entries in order, key i spanning keyOffsets[i] to keyOffsets[i + 1].
+     */
+    private final char[] keys;
+
+    private final int[] keyOffsets;
+
+    /**
+     * Texts as displayed, laid out like the keys.
+     */
+    private final char[] texts;
+
+    private final int[] textOffsets;
+
+    private final byte[] types;
+
+    private final AtomicLongArray weights;
+
+    /**
+     * Heaviest entry under every node of a complete binary tree over the
+     * entries, node 1 being the root and node leaves + i entry i; -1 below
+     * padding leaves. Ties go to the first entry.
+     */
+    private final int[] heaviest;
+
+    private final int leaves;
+
+    private BookSuggestionIndex(int size, int keyLength, int textLength) {
+        this.size = size;
+        keys = new char[keyLength];
+        keyOffsets = new int[size + 1];
+        texts = new char[textLength];
+        textOffsets = new int[size + 1];
+        types = new byte[size];
+        weights = new AtomicLongArray(size);
+        leaves = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        heaviest = new int[2 * leaves];
+    }
+
+    /**
+     * Indexes the entries; entries with an empty key are left out.
+     */
+    static BookSuggestionIndex build(Collection<Entry> entries) {
+        List<Entry> sorted = sorted(entries);
+        int keyLength = 0;
+        int textLength = 0;
+        for (Entry entry : sorted) {
+            keyLength += entry.key.length();
+            textLength += entry.text.length();
+        }
+        BookSuggestionIndex index = new BookSuggestionIndex(sorted.size(), keyLength, textLength);
+        for (int i = 0; i < sorted.size(); i++) {
+            index.set(i, sorted.get(i));
+        }
+        index.buildTree();
+        return index;
+    }
+
+    /**
+     * A new index with the kept entries of this one, at their current weight,
+     * and the added entries; entries with an empty key are left out. Only the
+     * added entries are sorted, the kept ones are merged in as they are.
+     *
+     * @param kept whether an entry of this index is kept
+     * @param added entries whose type and key are not in this index
+     * @param positions receives the position in the new index of every entry of this one, -1 if not kept
+     */
+    BookSuggestionIndex merge(IntPredicate kept, Collection<Entry> added, int[] positions) {
+        List<Entry> sorted = sorted(added);
+        int mergedSize = sorted.size();
+        int keyLength = 0;
+        int textLength = 0;
+        for (Entry entry : sorted) {
+            keyLength += entry.key.length();
+            textLength += entry.text.length();
+        }
+        for (int i = 0; i < size; i++) {
+            positions[i] = kept.test(i) ? 0 : -1;
+            if (positions[i] == 0) {
+                mergedSize++;
+                keyLength += keyOffsets[i + 1] - keyOffsets[i];
+                textLength += textOffsets[i + 1] - textOffsets[i];
+            }
+        }
+
+        BookSuggestionIndex merged = new BookSuggestionIndex(mergedSize, keyLength, textLength);
+        int next = 0;
+        int nextAdded = 0;
+        for (int i = 0; i < size; i++) {
+            if (positions[i] < 0) {
+                continue;
+            }
+            while (nextAdded < sorted.size() && compareEntry(i, sorted.get(nextAdded)) > 0) {
+                merged.set(next++, sorted.get(nextAdded++));
+            }
+            positions[i] = next;
+            merged.copy(next++, this, i);
+        }
+        while (nextAdded < sorted.size()) {
+            merged.set(next++, sorted.get(nextAdded++));
+        }
+        merged.buildTree();
+        return merged;
+    }
+
+    private static List<Entry> sorted(Collection<Entry> entries) {
+        List<Entry> sorted = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (!entry.key.isEmpty()) {
+                sorted.add(entry);
+            }
+        }
+        sorted.sort(Comparator.comparing((Entry entry) -> entry.key).thenComparing(entry -> entry.type));
+        return sorted;
+    }
+
+    /**
+     * Sets entry i; the entries before it must be set.
+     */
+    private void set(int i, Entry entry) {
+        entry.key.getChars(0, entry.key.length(), keys, keyOffsets[i]);
+        keyOffsets[i + 1] = keyOffsets[i] + entry.key.length();
+        entry.text.getChars(0, entry.text.length(), texts, textOffsets[i]);
+        textOffsets[i + 1] = textOffsets[i] + entry.text.length();
+        types[i] = (byte) entry.type.ordinal();
+        weights.set(i, entry.weight);
+    }
+
+    /**
+     * Sets entry i to an entry of another index; the entries before it must be set.
+     */
+    private void copy(int i, BookSuggestionIndex from, int entry) {
+        int keyLength = from.keyOffsets[entry + 1] - from.keyOffsets[entry];
+        System.arraycopy(from.keys, from.keyOffsets[entry], keys, keyOffsets[i], keyLength);
+        keyOffsets[i + 1] = keyOffsets[i] + keyLength;
+        int textLength = from.textOffsets[entry + 1] - from.textOffsets[entry];
+        System.arraycopy(from.texts, from.textOffsets[entry], texts, textOffsets[i], textLength);
+        textOffsets[i + 1] = textOffsets[i] + textLength;
+        types[i] = from.types[entry];
+        weights.set(i, from.weights.get(entry));
+    }
+
+    private void buildTree() {
+        for (int i = 0; i < leaves; i++) {
+            heaviest[leaves + i] = i < size ? i : -1;
+        }
+        for (int node = leaves - 1; node > 0; node--) {
+            heaviest[node] = heavier(heaviest[2 * node], heaviest[2 * node + 1]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param key the folded text
+     * @return the entry with the type and key, or -1 if there is none
+     */
+    int find(BookSuggestionDTO.Type type, String key) {
+        for (int i = lowerBound(key); i < size && compareKey(i, key) == 0; i++) {
+            if (types[i] == type.ordinal()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds to the weight of an entry and updates the heaviest entries above it.
+     */
+    void addWeight(int entry, long delta) {
+        weights.addAndGet(entry, delta);
+        for (int node = (leaves + entry) >>> 1; node > 0; node >>>= 1) {
+            heaviest[node] = heavier(heaviest[2 * node], heaviest[2 * node + 1]);
+        }
+    }
+
+    /**
+     * @return the heaviest entries whose folded text starts with the folded prefix, heaviest first
+     */
+    List<BookSuggestionDTO> complete(String prefix, int limit) {
+        String key = fold(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        int from = lowerBound(key);
+        int to = lowerBound(key + Character.MAX_VALUE);
+        if (from == to) {
+            return Collections.emptyList();
+        }
+
+        // ranges still to look at, by the weight of their heaviest entry
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> heavier(a[2], b[2]) == a[2] ? -1 : 1);
+        ranges.add(new int[]{from, to, heaviestIn(from, to)});
+        List<BookSuggestionDTO> completions = new ArrayList<>(limit);
+        while (completions.size() < limit && !ranges.isEmpty()) {
+            int[] range = ranges.poll();
+            int entry = range[2];
+            completions.add(new BookSuggestionDTO(new String(texts, textOffsets[entry], textOffsets[entry + 1] - textOffsets[entry]),
+                    TYPES[types[entry]], weights.get(entry)));
+            if (range[0] < entry) {
+                ranges.add(new int[]{range[0], entry, heaviestIn(range[0], entry)});
+            }
+            if (entry + 1 < range[1]) {
+                ranges.add(new int[]{entry + 1, range[1], heaviestIn(entry + 1, range[1])});
+            }
+        }
+        return completions;
+    }
+
+    /**
+     * Lower-cased words of the text separated by single spaces, accents removed.
+     */
+    static String fold(String text) {
+        return String.join(" ", BookSearchIndex.tokenize(text));
+    }
+
+    /**
+     * The first entry whose key is not below the given one.
+     */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKey(mid, key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares entries by key, then type.
+     */
+    private int compareEntry(int entry, Entry other) {
+        int difference = compareKey(entry, other.key);
+        return difference != 0 ? difference : types[entry] - other.type.ordinal();
+    }
+
+    private int compareKey(int entry, String key) {
+        int offset = keyOffsets[entry];
+        int length = keyOffsets[entry + 1] - offset;
+        int common = Math.min(length, key.length());
+        for (int i = 0; i < common; i++) {
+            int difference = keys[offset + i] - key.charAt(i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length();
+    }
+
+    /**
+     * The heaviest entry from index from (inclusive) to index to (exclusive).
+     */
+    private int heaviestIn(int from, int to) {
+        int result = -1;
+        for (int low = from + leaves, high = to + leaves; low < high; low >>>= 1, high >>>= 1) {
+            if ((low & 1) == 1) {
+                result = heavier(result, heaviest[low++]);
+            }
+            if ((high & 1) == 1) {
+                result = heavier(result, heaviest[--high]);
+            }
+        }
+        return result;
+    }
+
+    private int heavier(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        long weightA = weights.get(a);
+        long weightB = weights.get(b);
+        if (weightA != weightB) {
+            return weightA > weightB ? a : b;
+        }
+        return Math.min(a, b);
+    }
+
+    /**
+     * A title or author with the copies sold of its books.
+     */
+    static final class Entry {
+
+        private final BookSuggestionDTO.Type type;
+
+        private final String key;
+
+        private final String text;
+
+        private final long weight;
+
+        /**
+         * @param key the folded text
+         */
+        Entry(BookSuggestionDTO.Type type, String key, String text, long weight) {
+            this.type = type;
+            this.key = key;
+            this.text = text;
+            this.weight = weight;
+        }
+
+        BookSuggestionDTO.Type getType() {
+            return type;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        long getWeight() {
+            return weight;
+        }
+    }
+}
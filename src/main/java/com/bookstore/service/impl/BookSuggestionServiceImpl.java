@@ -0,0 +1,332 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.config.ApplicationProperties;
+import com.bookstore.model.Book;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderBook;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.service.BookSuggestionService;
+import com.bookstore.service.dto.BookSalesDTO;
+import com.bookstore.service.dto.BookSuggestionDTO;
+import com.bookstore.service.dto.BookSummaryDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suggests titles and authors from a BookSuggestionIndex. The titles, authors
+ * and sales of the books are loaded at startup and then follow the book and
+ * order writes. Sales change the weights of the index in place; titles and
+ * authors the index does not have yet wait for the next refresh, which merges
+ * them in the background together with the removal of the texts no book has
+ * anymore.
+ */
+@Service
+public class BookSuggestionServiceImpl implements BookSuggestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSuggestionServiceImpl.class);
+
+    /**
+     * Books read per statement while loading the suggestions.
+     */
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int NO_ENTRY = -1;
+
+    private static final BookSuggestionDTO.Type[] TYPES = BookSuggestionDTO.Type.values();
+
+    private final BookRepository bookRepository;
+
+    private final ApplicationProperties.Suggestion properties;
+
+    /**
+     * Ordinal of every book in the arrays below, guarded by this like them.
+     */
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+
+    /**
+     * Copies sold of every book, by ordinal.
+     */
+    private long[] sales = new long[INITIAL_CAPACITY];
+
+    /**
+     * Index entry of the title and author of every book, by type and ordinal;
+     * NO_ENTRY if the book has no such text or it is not indexed yet.
+     */
+    private final int[][] entries = new int[TYPES.length][INITIAL_CAPACITY];
+
+    private int nextOrdinal;
+
+    /**
+     * Ordinals of removed books, handed out again first.
+     */
+    private int[] freeOrdinals = new int[INITIAL_CAPACITY];
+
+    private int freeCount;
+
+    /**
+     * Books of every entry of the index; the next refresh drops the entries left without books.
+     */
+    private int[] entryBooks = new int[0];
+
+    /**
+     * Texts the index does not have yet, by type and book, added by the next refresh.
+     */
+    private final Map<BookSuggestionDTO.Type, Map<Long, String>> pendingTexts =
+            new EnumMap<>(BookSuggestionDTO.Type.class);
+
+    private boolean textsChanged;
+
+    /**
+     * Weights change under the lock of this, the index is only replaced by a refresh.
+     */
+    private volatile BookSuggestionIndex index = BookSuggestionIndex.EMPTY;
+
+    private ScheduledExecutorService refresher;
+
+    @Autowired
+    public BookSuggestionServiceImpl(BookRepository bookRepository, ApplicationProperties applicationProperties) {
+        this.bookRepository = bookRepository;
+        this.properties = applicationProperties.getSuggestion();
+        for (BookSuggestionDTO.Type type : TYPES) {
+            pendingTexts.put(type, new HashMap<>());
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        long start = System.nanoTime();
+        long afterId = 0L;
+        List<BookSummaryDTO> summaries;
+        do {
+            summaries = bookRepository.findSummariesAfterId(afterId, new PageRequest(0, LOAD_BATCH_SIZE));
+            for (BookSummaryDTO summary : summaries) {
+                put(summary.getBookId(), summary.getBookTitle(), summary.getBookAuthor());
+                afterId = summary.getBookId();
+            }
+        } while (summaries.size() == LOAD_BATCH_SIZE);
+        for (BookSalesDTO sales : bookRepository.findSales()) {
+            addSales(sales.getBookId(), sales.getQuantity());
+        }
+        refresh();
+        log.info("Loaded {} book suggestions in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-suggestions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, properties.getRefreshIntervalMillis(),
+                properties.getRefreshIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    @Override
+    public List<BookSuggestionDTO> suggest(String prefix, int size) {
+        return index.complete(prefix, Math.min(size, properties.getMaxSuggestions()));
+    }
+
+    @Override
+    public void index(Book book) {
+        Long bookId = book.getBookId();
+        String title = book.getBookTitle();
+        String author = book.getBookAuthor();
+        TransactionCallbacks.afterCommit(() -> put(bookId, title, author));
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        TransactionCallbacks.afterCommit(() -> removeBook(bookId));
+    }
+
+    @Override
+    public void addSales(Order order) {
+        Map<Long, Long> quantities = quantitiesByBookId(order);
+        TransactionCallbacks.afterCommit(() -> quantities.forEach(this::addSales));
+    }
+
+    @Override
+    public void removeSales(Order order) {
+        Map<Long, Long> quantities = quantitiesByBookId(order);
+        TransactionCallbacks.afterCommit(() -> quantities.forEach((bookId, quantity) -> addSales(bookId, -quantity)));
+    }
+
+    private static Map<Long, Long> quantitiesByBookId(Order order) {
+        Map<Long, Long> quantities = new HashMap<>();
+        for (OrderBook line : order.getBooks()) {
+            if (line.getBook() != null && line.getBook().getBookId() != null && line.getQuantity() != null) {
+                quantities.merge(line.getBook().getBookId(), line.getQuantity(), Long::sum);
+            }
+        }
+        return quantities;
+    }
+
+    private synchronized void put(Long bookId, String title, String author) {
+        Integer ordinal = ordinals.get(bookId);
+        if (ordinal == null) {
+            ordinal = newOrdinal();
+            ordinals.put(bookId, ordinal);
+        }
+        attach(bookId, ordinal, BookSuggestionDTO.Type.TITLE, title);
+        attach(bookId, ordinal, BookSuggestionDTO.Type.AUTHOR, author);
+    }
+
+    private synchronized void removeBook(Long bookId) {
+        Integer ordinal = ordinals.remove(bookId);
+        if (ordinal == null) {
+            return;
+        }
+        for (BookSuggestionDTO.Type type : TYPES) {
+            detach(bookId, ordinal, type);
+        }
+        sales[ordinal] = 0L;
+        if (freeCount == freeOrdinals.length) {
+            freeOrdinals = Arrays.copyOf(freeOrdinals, 2 * freeCount);
+        }
+        freeOrdinals[freeCount++] = ordinal;
+    }
+
+    /**
+     * Sales of books the suggestions do not know, deleted ones for instance, are ignored.
+     */
+    private synchronized void addSales(Long bookId, Long quantity) {
+        Integer ordinal = ordinals.get(bookId);
+        if (ordinal == null) {
+            return;
+        }
+        sales[ordinal] += quantity;
+        for (BookSuggestionDTO.Type type : TYPES) {
+            int entry = entries[type.ordinal()][ordinal];
+            if (entry != NO_ENTRY) {
+                index.addWeight(entry, quantity);
+            }
+        }
+    }
+
+    /**
+     * Replaces the text of the book, which counts towards the entry of the new
+     * text right away if the index has one, and after the next refresh otherwise.
+     */
+    private void attach(Long bookId, int ordinal, BookSuggestionDTO.Type type, String text) {
+        detach(bookId, ordinal, type);
+        String key = BookSuggestionIndex.fold(text);
+        if (key.isEmpty()) {
+            return;
+        }
+        int entry = index.find(type, key);
+        if (entry == NO_ENTRY) {
+            pendingTexts.get(type).put(bookId, text.trim());
+            textsChanged = true;
+            return;
+        }
+        entries[type.ordinal()][ordinal] = entry;
+        entryBooks[entry]++;
+        index.addWeight(entry, sales[ordinal]);
+    }
+
+    private void detach(Long bookId, int ordinal, BookSuggestionDTO.Type type) {
+        pendingTexts.get(type).remove(bookId);
+        int entry = entries[type.ordinal()][ordinal];
+        if (entry == NO_ENTRY) {
+            return;
+        }
+        entries[type.ordinal()][ordinal] = NO_ENTRY;
+        index.addWeight(entry, -sales[ordinal]);
+        if (--entryBooks[entry] == 0) {
+            textsChanged = true;
+        }
+    }
+
+    private int newOrdinal() {
+        int ordinal;
+        if (freeCount > 0) {
+            ordinal = freeOrdinals[--freeCount];
+        } else {
+            if (nextOrdinal == sales.length) {
+                sales = Arrays.copyOf(sales, 2 * nextOrdinal);
+                for (int type = 0; type < TYPES.length; type++) {
+                    entries[type] = Arrays.copyOf(entries[type], 2 * nextOrdinal);
+                }
+            }
+            ordinal = nextOrdinal++;
+        }
+        for (int type = 0; type < TYPES.length; type++) {
+            entries[type][ordinal] = NO_ENTRY;
+        }
+        return ordinal;
+    }
+
+    /**
+     * Merges the pending texts into a new index and drops the entries left
+     * without books, if there are any. The entries of the index are taken over
+     * in order, only the pending texts are sorted.
+     */
+    synchronized void refresh() {
+        if (!textsChanged) {
+            return;
+        }
+        textsChanged = false;
+
+        // the pending texts with the copies sold of their books, one entry per type and key
+        List<BookSuggestionIndex.Entry> added = new ArrayList<>();
+        for (BookSuggestionDTO.Type type : TYPES) {
+            Map<String, String> textsByKey = new HashMap<>();
+            Map<String, Long> salesByKey = new HashMap<>();
+            pendingTexts.get(type).forEach((bookId, text) -> {
+                String key = BookSuggestionIndex.fold(text);
+                textsByKey.putIfAbsent(key, text);
+                salesByKey.merge(key, sales[ordinals.get(bookId)], Long::sum);
+            });
+            textsByKey.forEach((key, text) ->
+                    added.add(new BookSuggestionIndex.Entry(type, key, text, salesByKey.get(key))));
+        }
+
+        int[] positions = new int[index.size()];
+        int[] books = entryBooks;
+        BookSuggestionIndex merged = index.merge(entry -> books[entry] > 0, added, positions);
+        int[] mergedBooks = new int[merged.size()];
+        for (int entry = 0; entry < positions.length; entry++) {
+            if (positions[entry] != NO_ENTRY) {
+                mergedBooks[positions[entry]] = books[entry];
+            }
+        }
+        for (int type = 0; type < TYPES.length; type++) {
+            for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+                if (entries[type][ordinal] != NO_ENTRY) {
+                    entries[type][ordinal] = positions[entries[type][ordinal]];
+                }
+            }
+        }
+        for (BookSuggestionDTO.Type type : TYPES) {
+            Map<Long, String> pending = pendingTexts.get(type);
+            pending.forEach((bookId, text) -> {
+                int entry = merged.find(type, BookSuggestionIndex.fold(text));
+                entries[type.ordinal()][ordinals.get(bookId)] = entry;
+                mergedBooks[entry]++;
+            });
+            pending.clear();
+        }
+        entryBooks = mergedBooks;
+        index = merged;
+    }
+}
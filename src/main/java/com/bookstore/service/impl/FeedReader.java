@@ -0,0 +1,139 @@
+package com.bookstore.service.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a feed row by row from a character stream, holding one row at a time:
+ * lines of NDJSON, or records of RFC 4180 CSV whose quoted fields may span
+ * lines. Rows are bounded in length, so that a feed of any size is read in
+ * constant memory; a byte order mark at the start is skipped.
+ */
+class FeedReader {
+
+    private final Reader reader;
+
+    private final int maxRowLength;
+
+    private long lines;
+
+    private long rowLine;
+
+    private boolean started;
+
+    /**
+     * @param reader a buffered reader, read one character at a time
+     */
+    FeedReader(Reader reader, int maxRowLength) {
+        this.reader = reader;
+        this.maxRowLength = maxRowLength;
+    }
+
+    /**
+     * @return the line the last row read starts on, counting from 1
+     */
+    long getRowLine() {
+        return rowLine;
+    }
+
+    /**
+     * @return the next line without its terminator, or null at the end of the feed
+     */
+    String readLine() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        rowLine = ++lines;
+        StringBuilder line = new StringBuilder();
+        while (c != -1 && c != '\n') {
+            if (c != '\r') {
+                append(line, c);
+            }
+            c = read();
+        }
+        return line.toString();
+    }
+
+    /**
+     * @return the fields of the next record, or null at the end of the feed
+     */
+    List<String> readCsvRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        rowLine = ++lines;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int length = 0;
+        boolean quoted = false;
+        while (true) {
+            if (c == -1 || (c == '\n' && !quoted)) {
+                fields.add(field.toString());
+                return fields;
+            }
+            if (++length > maxRowLength) {
+                throw new RowTooLongException(rowLine, maxRowLength);
+            }
+            if (quoted) {
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    lines++;
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private void append(StringBuilder row, int c) throws RowTooLongException {
+        if (row.length() == maxRowLength) {
+            throw new RowTooLongException(rowLine, maxRowLength);
+        }
+        row.append((char) c);
+    }
+
+    private int read() throws IOException {
+        int c = reader.read();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                c = reader.read();
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Thrown for a row longer than the bound; the rest of the feed cannot be
+     * told apart from the row and is not read.
+     */
+    static class RowTooLongException extends IOException {
+
+        private final long line;
+
+        RowTooLongException(long line, int maxRowLength) {
+            super("Row is longer than " + maxRowLength + " characters");
+            this.line = line;
+        }
+
+        long getLine() {
+            return line;
+        }
+    }
+}
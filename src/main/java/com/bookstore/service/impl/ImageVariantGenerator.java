@@ -0,0 +1,121 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.model.BookImageVariant;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Decodes an uploaded image once and produces its downscaled variants. Each
+ * variant is scaled from the next larger one, so the full-size image is only
+ * walked for the first step.
+ */
+final class ImageVariantGenerator {
+
+    private static final String JPEG = "image/jpeg";
+
+    private static final String PNG = "image/png";
+
+    private ImageVariantGenerator() {
+    }
+
+    /**
+     * @param source the uploaded image bytes
+     * @param widths the requested variant widths, those not narrower than the source are skipped
+     * @param jpegQuality the compression quality of opaque variants
+     * @return the variants without book id and source digest, empty if the format is not supported
+     */
+    static List<BookImageVariant> generate(byte[] source, List<Integer> widths, float jpegQuality) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(source));
+        if (image == null) {
+            return Collections.emptyList();
+        }
+        boolean alpha = image.getColorModel().hasAlpha();
+        List<Integer> targets = widths.stream()
+                .filter(width -> width > 0 && width < image.getWidth())
+                .distinct()
+                .sorted(Comparator.reverseOrder())
+                .collect(Collectors.toList());
+
+        List<BookImageVariant> variants = new ArrayList<>(targets.size());
+        BufferedImage current = image;
+        for (int width : targets) {
+            int height = Math.max(1, (int) Math.round((double) image.getHeight() * width / image.getWidth()));
+            current = downscale(current, width, height, alpha);
+
+            byte[] data = alpha ? encodePng(current) : encodeJpeg(current, jpegQuality);
+            BookImageVariant variant = new BookImageVariant();
+            variant.setWidth(width);
+            variant.setHeight(height);
+            variant.setContentType(alpha ? PNG : JPEG);
+            variant.setLength((long) data.length);
+            variant.setData(data);
+            variants.add(variant);
+        }
+        return variants;
+    }
+
+    /**
+     * Halves the image while it is at least twice the target width, then does a
+     * last bilinear step; a single large bilinear step would alias badly.
+     */
+    private static BufferedImage downscale(BufferedImage source, int width, int height, boolean alpha) {
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= width) {
+            current = resize(current, current.getWidth() / 2, Math.max(height, current.getHeight() / 2), alpha);
+        }
+        if (current.getWidth() != width || current.getHeight() != height) {
+            current = resize(current, width, height, alpha);
+        }
+        return current;
+    }
+
+    private static BufferedImage resize(BufferedImage source, int width, int height, boolean alpha) {
+        BufferedImage target = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bytes);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,109 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderBook;
+import com.bookstore.repository.BookStockRepository;
+import com.bookstore.service.InventoryService;
+import com.bookstore.service.OutOfStockException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Service
+public class InventoryServiceImpl implements InventoryService {
+
+    private final BookStockRepository bookStockRepository;
+
+    private final StockReserver stockReserver;
+
+    @Autowired
+    public InventoryServiceImpl(BookStockRepository bookStockRepository, PlatformTransactionManager transactionManager) {
+        this.bookStockRepository = bookStockRepository;
+        this.stockReserver = new StockReserver(bookStockRepository, transactionManager);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Long findStock(Long bookId) {
+        return bookStockRepository.findQuantity(bookId);
+    }
+
+    @Override
+    @Transactional
+    public void updateStock(Long bookId, Long quantity) {
+        if (quantity == null) {
+            bookStockRepository.delete(bookId);
+        } else {
+            bookStockRepository.updateQuantity(bookId, quantity);
+        }
+    }
+
+    @Override
+    public void reserve(Order order) {
+        reserve(quantities(order));
+    }
+
+    @Override
+    public void reserve(Order replaced, Order order) {
+        Map<Long, Long> differences = quantities(order);
+        for (OrderBook line : replaced.getBooks()) {
+            differences.merge(line.getBook().getBookId(), -line.getQuantity(), Long::sum);
+        }
+        Map<Long, Long> added = new LinkedHashMap<>();
+        Map<Long, Long> removed = new LinkedHashMap<>();
+        differences.forEach((bookId, difference) -> {
+            if (difference > 0) {
+                added.put(bookId, difference);
+            } else if (difference < 0) {
+                removed.put(bookId, -difference);
+            }
+        });
+        reserve(added);
+        TransactionCallbacks.afterCommit(() -> giveBack(removed));
+    }
+
+    @Override
+    public void release(Order order) {
+        Map<Long, Long> removed = quantities(order);
+        TransactionCallbacks.afterCommit(() -> giveBack(removed));
+    }
+
+    private void reserve(Map<Long, Long> wanted) {
+        Map<Long, Long> taken = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<Long, Long> copies : wanted.entrySet()) {
+                Long bookId = copies.getKey();
+                StockReserver.Outcome outcome = stockReserver.take(bookId, copies.getValue());
+                if (outcome == StockReserver.Outcome.REFUSED) {
+                    throw new OutOfStockException(bookId);
+                }
+                if (outcome == StockReserver.Outcome.TAKEN) {
+                    taken.put(bookId, copies.getValue());
+                }
+            }
+        } catch (RuntimeException e) {
+            giveBack(taken);
+            throw e;
+        }
+        TransactionCallbacks.afterRollback(() -> giveBack(taken));
+    }
+
+    /**
+     * The copies ordered per book, in the order of the lines.
+     */
+    private static Map<Long, Long> quantities(Order order) {
+        Map<Long, Long> quantities = new LinkedHashMap<>();
+        for (OrderBook line : order.getBooks()) {
+            quantities.merge(line.getBook().getBookId(), line.getQuantity(), Long::sum);
+        }
+        return quantities;
+    }
+
+    private void giveBack(Map<Long, Long> taken) {
+        taken.forEach(stockReserver::giveBack);
+    }
+}
@@ -0,0 +1,158 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.repository.OrderRepository;
+import com.bookstore.repository.OrderRepositoryCustom;
+import com.bookstore.service.OrderExportService;
+import com.bookstore.service.dto.FeedFormat;
+import com.bookstore.service.dto.OrderExportRowDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes the orders row by row while the repository reads them, through a
+ * buffer of BUFFER_SIZE characters, so that an export holds one row at a time
+ * whatever the number of orders. Dates are ISO-8601 instants in CSV and
+ * follow the JSON of the other endpoints in NDJSON.
+ */
+@Service
+public class OrderExportServiceImpl implements OrderExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderExportServiceImpl.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String CSV_HEADER = "order_id,order_date,order_status,order_price,user_id,user_name," +
+            "book_id,book_title,quantity,unit_price";
+
+    private final OrderRepository orderRepository;
+
+    private final ObjectWriter rowWriter;
+
+    @Autowired
+    public OrderExportServiceImpl(OrderRepository orderRepository, ObjectMapper objectMapper) {
+        this.orderRepository = orderRepository;
+        // the buffer is flushed once at the end, not after every row
+        this.rowWriter = objectMapper.writerFor(OrderExportRowDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportOrders(FeedFormat format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        RowCounter counter = new RowCounter(format == FeedFormat.CSV ? csvRows(writer) : ndjsonRows(writer));
+        orderRepository.exportRows(counter);
+        writer.flush();
+        log.info("Exported {} order rows as {} in {} ms", counter.rows, format,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private OrderRepositoryCustom.ExportRowHandler ndjsonRows(Writer writer) throws IOException {
+        JsonGenerator generator = rowWriter.getFactory().createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+                .setRootValueSeparator(null);
+        return row -> {
+            rowWriter.writeValue(generator, row);
+            generator.writeRaw('\n');
+            // hands the row over to the buffered writer
+            generator.flush();
+        };
+    }
+
+    private static OrderRepositoryCustom.ExportRowHandler csvRows(Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        return row -> {
+            writer.write(String.valueOf(row.getOrderId()));
+            writer.write(',');
+            if (row.getOrderDate() != null) {
+                writer.write(DateTimeFormatter.ISO_INSTANT.format(row.getOrderDate().toInstant()));
+            }
+            writer.write(',');
+            writer.write(String.valueOf(row.isOrderStatus()));
+            writer.write(',');
+            writeDecimal(writer, row.getOrderPrice());
+            writer.write(',');
+            writeValue(writer, row.getUserId());
+            writer.write(',');
+            writeText(writer, row.getUserName());
+            writer.write(',');
+            writeValue(writer, row.getBookId());
+            writer.write(',');
+            writeText(writer, row.getBookTitle());
+            writer.write(',');
+            writeValue(writer, row.getQuantity());
+            writer.write(',');
+            writeDecimal(writer, row.getUnitPrice());
+            writer.write("\r\n");
+        };
+    }
+
+    private static void writeValue(Writer writer, Long value) throws IOException {
+        if (value != null) {
+            writer.write(value.toString());
+        }
+    }
+
+    private static void writeDecimal(Writer writer, BigDecimal value) throws IOException {
+        if (value != null) {
+            writer.write(value.toPlainString());
+        }
+    }
+
+    /**
+     * Quotes the text if it holds a separator, a quote or a line break, doubling its quotes.
+     */
+    private static void writeText(Writer writer, String text) throws IOException {
+        if (text == null) {
+            return;
+        }
+        boolean quoted = false;
+        for (int i = 0; i < text.length() && !quoted; i++) {
+            char c = text.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static class RowCounter implements OrderRepositoryCustom.ExportRowHandler {
+
+        private final OrderRepositoryCustom.ExportRowHandler handler;
+
+        private long rows;
+
+        RowCounter(OrderRepositoryCustom.ExportRowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void handle(OrderExportRowDTO row) throws IOException {
+            handler.handle(row);
+            rows++;
+        }
+    }
+}
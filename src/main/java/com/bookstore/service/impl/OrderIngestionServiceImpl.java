@@ -0,0 +1,270 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.config.ApplicationProperties;
+import com.bookstore.model.Book;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderBook;
+import com.bookstore.model.User;
+import com.bookstore.repository.OrderJournal;
+import com.bookstore.repository.OrderRepository;
+import com.bookstore.repository.UserRepository;
+import com.bookstore.service.OrderIngestionService;
+import com.bookstore.service.OrderService;
+import com.bookstore.service.dto.IngestionLagDTO;
+import com.bookstore.service.dto.OrderIngestionStatusDTO;
+import com.bookstore.service.dto.OrderLineDTO;
+import com.bookstore.service.dto.QueuedOrderDTO;
+import com.bookstore.service.dto.RejectedOrderDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queues orders in an {@link OrderJournal} and writes them to the database
+ * from a single background thread, a batch of orders per transaction. Request
+ * threads only validate and append, so checkout spikes are absorbed by the
+ * journal instead of the connection pool.
+ */
+@Service
+@ConditionalOnProperty(prefix = "bookstore.ingestion", name = "enabled", havingValue = "true")
+public class OrderIngestionServiceImpl implements OrderIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIngestionServiceImpl.class);
+
+    private final OrderRepository orderRepository;
+
+    private final UserRepository userRepository;
+
+    private final OrderPricer orderPricer;
+
+    private final OrderService orderService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.Ingestion properties;
+
+    /**
+     * Recent statuses by handle; older handles are looked up in the database.
+     */
+    private final Cache<String, OrderIngestionStatusDTO> statuses;
+
+    private final AtomicLong pendingOrders = new AtomicLong();
+
+    private final AtomicLong storedOrders = new AtomicLong();
+
+    private final AtomicLong rejectedOrders = new AtomicLong();
+
+    private OrderJournal journal;
+
+    private ScheduledExecutorService writer;
+
+    @Autowired
+    public OrderIngestionServiceImpl(OrderRepository orderRepository,
+                                     UserRepository userRepository,
+                                     OrderPricer orderPricer,
+                                     OrderService orderService,
+                                     PlatformTransactionManager transactionManager,
+                                     ApplicationProperties applicationProperties) {
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+        this.orderPricer = orderPricer;
+        this.orderService = orderService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getIngestion();
+        this.statuses = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getStatusRetentionSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        journal = new OrderJournal(Paths.get(properties.getJournalDirectory()));
+
+        // orders left in the journal by the previous run are still queued
+        long offset = journal.getCheckpoint();
+        OrderJournal.Batch batch;
+        while (!(batch = journal.read(offset, properties.getBatchSize())).isEmpty()) {
+            for (QueuedOrderDTO queued : batch.getOrders()) {
+                statuses.put(queued.getHandle(), OrderIngestionStatusDTO.queued(queued.getHandle()));
+            }
+            pendingOrders.addAndGet(batch.getOrders().size());
+            offset = batch.getEndOffset();
+        }
+
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-ingestion");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::drain, 0, properties.getPollIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(30, TimeUnit.SECONDS);
+        journal.close();
+    }
+
+    @Override
+    public String enqueueOrder(Order order, Long userId) throws IOException {
+        orderPricer.validate(order);
+
+        String handle = UUID.randomUUID().toString();
+        QueuedOrderDTO queued = new QueuedOrderDTO(handle, userId, System.currentTimeMillis());
+        for (OrderBook line : order.getBooks()) {
+            OrderLineDTO queuedLine = new OrderLineDTO();
+            queuedLine.setBookId(line.getBook().getBookId());
+            queuedLine.setQuantity(line.getQuantity());
+            queued.getBooks().add(queuedLine);
+        }
+        // registered first, the writer may store the order as soon as it is appended
+        statuses.put(handle, OrderIngestionStatusDTO.queued(handle));
+        try {
+            journal.append(queued);
+        } catch (IOException e) {
+            statuses.invalidate(handle);
+            throw e;
+        }
+        pendingOrders.incrementAndGet();
+        return handle;
+    }
+
+    @Override
+    public OrderIngestionStatusDTO findStatus(String handle) {
+        OrderIngestionStatusDTO status = statuses.getIfPresent(handle);
+        if (status != null) {
+            return status;
+        }
+        List<OrderIngestionStatusDTO> stored =
+                orderRepository.findIngestionStatusesByHandleIn(Collections.singleton(handle));
+        return stored.isEmpty() ? null : stored.get(0);
+    }
+
+    @Override
+    public IngestionLagDTO getLag() throws IOException {
+        long oldestPendingAge = 0;
+        List<QueuedOrderDTO> oldest = journal.read(journal.getCheckpoint(), 1).getOrders();
+        if (!oldest.isEmpty()) {
+            oldestPendingAge = Math.max(0, System.currentTimeMillis() - oldest.get(0).getReceivedAt());
+        }
+        return new IngestionLagDTO(pendingOrders.get(), journal.pendingBytes(), oldestPendingAge,
+                storedOrders.get(), rejectedOrders.get());
+    }
+
+    /**
+     * Writes batches until the journal is empty. On failure the batch stays
+     * in the journal and is retried on the next run.
+     */
+    private void drain() {
+        try {
+            OrderJournal.Batch batch;
+            while (!(batch = journal.read(journal.getCheckpoint(), properties.getBatchSize())).isEmpty()) {
+                List<QueuedOrderDTO> queued = batch.getOrders();
+                Map<String, OrderIngestionStatusDTO> results;
+                try {
+                    results = transactionTemplate.execute(tx -> store(queued));
+                } catch (DataIntegrityViolationException e) {
+                    log.warn("Could not write a batch of {} queued orders, writing them one by one", queued.size(), e);
+                    results = storeOneByOne(queued);
+                }
+                journal.commit(batch.getEndOffset());
+                statuses.putAll(results);
+                pendingOrders.addAndGet(-queued.size());
+                for (OrderIngestionStatusDTO result : results.values()) {
+                    if (result.getState() == OrderIngestionStatusDTO.State.STORED) {
+                        storedOrders.incrementAndGet();
+                    } else {
+                        rejectedOrders.incrementAndGet();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Could not write queued orders, retrying in {} ms", properties.getPollIntervalMillis(), e);
+        }
+    }
+
+    private Map<String, OrderIngestionStatusDTO> store(List<QueuedOrderDTO> queued) {
+        Map<String, OrderIngestionStatusDTO> results = new HashMap<>();
+        List<String> handles = new ArrayList<>();
+        for (QueuedOrderDTO order : queued) {
+            handles.add(order.getHandle());
+        }
+        // orders written before a crash that happened ahead of the journal commit
+        for (OrderIngestionStatusDTO stored : orderRepository.findIngestionStatusesByHandleIn(handles)) {
+            results.put(stored.getHandle(), stored);
+        }
+
+        List<Order> orders = new ArrayList<>();
+        for (QueuedOrderDTO order : queued) {
+            if (!results.containsKey(order.getHandle())) {
+                orders.add(toOrder(order));
+            }
+        }
+        for (RejectedOrderDTO rejected : orderService.placeOrders(orders)) {
+            String handle = rejected.getOrder().getIngestionHandle();
+            results.put(handle, OrderIngestionStatusDTO.rejected(handle, rejected.getReason().getMessage()));
+            orders.remove(rejected.getOrder());
+        }
+        for (Order order : orders) {
+            results.put(order.getIngestionHandle(),
+                    new OrderIngestionStatusDTO(order.getIngestionHandle(), order.getOrderId()));
+        }
+        return results;
+    }
+
+    /**
+     * Isolates the orders of a batch that violate a constraint, for instance
+     * because their user was deleted, so that they do not block the queue.
+     */
+    private Map<String, OrderIngestionStatusDTO> storeOneByOne(List<QueuedOrderDTO> queued) {
+        Map<String, OrderIngestionStatusDTO> results = new HashMap<>();
+        for (QueuedOrderDTO order : queued) {
+            try {
+                results.putAll(transactionTemplate.execute(tx -> store(Collections.singletonList(order))));
+            } catch (DataIntegrityViolationException e) {
+                results.put(order.getHandle(), OrderIngestionStatusDTO.rejected(order.getHandle(),
+                        "Order could not be stored"));
+            }
+        }
+        return results;
+    }
+
+    private Order toOrder(QueuedOrderDTO queued) {
+        Order order = new Order();
+        order.setIngestionHandle(queued.getHandle());
+        order.setOrderDate(new Date(queued.getReceivedAt()));
+        order.setUser(userRepository.getOne(queued.getUserId()));
+        for (OrderLineDTO queuedLine : queued.getBooks()) {
+            Book book = new Book();
+            book.setBookId(queuedLine.getBookId());
+            OrderBook line = new OrderBook(order, book);
+            line.setQuantity(queuedLine.getQuantity());
+            order.getBooks().add(line);
+        }
+        return order;
+    }
+}
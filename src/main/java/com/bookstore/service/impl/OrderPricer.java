@@ -0,0 +1,145 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderBook;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.service.dto.BookPriceDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes order totals on the server. Each line keeps the unit price it was
+ * sold at, so that past orders are read and totalled without the book table.
+ */
+@Component
+public class OrderPricer {
+
+    private final BookRepository bookRepository;
+
+    @Autowired
+    public OrderPricer(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Sets the unit price of the lines of a new order to the current price of
+     * their books, whatever price the client sent, and the order total.
+     *
+     * @throws IllegalArgumentException if the order is not {@link #validate valid},
+     * or if one of its books does not exist or has no price
+     */
+    public void price(Order order) {
+        price(order, (Order) null);
+    }
+
+    /**
+     * Prices an order that replaces a stored one. Lines of books the stored
+     * order already had keep the price they were sold at; the other lines get
+     * the current price of their book, whatever price the client sent.
+     *
+     * @param replaced the stored order with the unit prices of its lines, or null for a new order
+     * @throws IllegalArgumentException if the order is not {@link #validate valid},
+     * or if one of its books does not exist or has no price
+     */
+    public void price(Order order, Order replaced) {
+        Map<Long, BigDecimal> soldPrices = new HashMap<>();
+        if (replaced != null) {
+            for (OrderBook line : replaced.getBooks()) {
+                if (line.getUnitPrice() != null) {
+                    soldPrices.put(line.getBook().getBookId(), line.getUnitPrice());
+                }
+            }
+        }
+        if (!price(Collections.singletonList(order), soldPrices).isEmpty()) {
+            throw new IllegalArgumentException("Order references books that do not exist or have no price");
+        }
+    }
+
+    /**
+     * Prices new orders as {@link #price(Order)} does, reading the prices of
+     * all their books in one statement.
+     *
+     * @return the orders left unpriced because one of their books does not exist or has no price
+     * @throws IllegalArgumentException if one of the orders is not {@link #validate valid}
+     */
+    public List<Order> price(List<Order> orders) {
+        return price(orders, Collections.emptyMap());
+    }
+
+    private List<Order> price(List<Order> orders, Map<Long, BigDecimal> soldPrices) {
+        Set<Long> unpricedBookIds = new HashSet<>();
+        for (Order order : orders) {
+            validate(order);
+            for (OrderBook line : order.getBooks()) {
+                if (!soldPrices.containsKey(line.getBook().getBookId())) {
+                    unpricedBookIds.add(line.getBook().getBookId());
+                }
+            }
+        }
+
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        if (!unpricedBookIds.isEmpty()) {
+            for (BookPriceDTO price : bookRepository.findPricesByBookIdIn(unpricedBookIds)) {
+                if (price.getBookPrice() != null) {
+                    prices.put(price.getBookId(), price.getBookPrice());
+                }
+            }
+        }
+        prices.putAll(soldPrices);
+
+        List<Order> unpriced = new ArrayList<>();
+        for (Order order : orders) {
+            if (!price(order, prices)) {
+                unpriced.add(order);
+            }
+        }
+        return unpriced;
+    }
+
+    /**
+     * Checks the order without reading the database.
+     *
+     * @throws IllegalArgumentException if a line has no book, no positive
+     * quantity or repeats a book
+     */
+    public void validate(Order order) {
+        Set<Long> bookIds = new HashSet<>();
+        for (OrderBook line : order.getBooks()) {
+            if (line.getBook() == null || line.getBook().getBookId() == null) {
+                throw new IllegalArgumentException("Order line without a book");
+            }
+            Long bookId = line.getBook().getBookId();
+            if (line.getQuantity() == null || line.getQuantity() < 1) {
+                throw new IllegalArgumentException("Quantity of book " + bookId + " is not positive");
+            }
+            if (!bookIds.add(bookId)) {
+                throw new IllegalArgumentException("Book " + bookId + " is ordered twice");
+            }
+        }
+    }
+
+    private static boolean price(Order order, Map<Long, BigDecimal> prices) {
+        for (OrderBook line : order.getBooks()) {
+            if (!prices.containsKey(line.getBook().getBookId())) {
+                return false;
+            }
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderBook line : order.getBooks()) {
+            line.setUnitPrice(prices.get(line.getBook().getBookId()));
+            total = total.add(line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+        }
+        order.setOrderPrice(total.setScale(2, RoundingMode.HALF_UP));
+        return true;
+    }
+}
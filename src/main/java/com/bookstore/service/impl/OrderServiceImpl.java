@@ -1,61 +1,248 @@
 package com.bookstore.service.impl;
 
+import com.bookstore.model.Book;
 import com.bookstore.model.Order;
 import com.bookstore.model.OrderBook;
-import com.bookstore.model.User;
 import com.bookstore.repository.OrderRepository;
-import com.bookstore.repository.UserRepository;
+import com.bookstore.service.BookSalesService;
+import com.bookstore.service.BookSuggestionService;
+import com.bookstore.service.InventoryService;
 import com.bookstore.service.OrderService;
+import com.bookstore.service.OutOfStockException;
+import com.bookstore.service.dto.CursorPage;
+import com.bookstore.service.dto.OrderCursor;
+import com.bookstore.service.dto.OrderDTO;
+import com.bookstore.service.dto.OrderLineDTO;
+import com.bookstore.service.dto.OrderSearchCriteria;
+import com.bookstore.service.dto.RejectedOrderDTO;
+import com.bookstore.service.dto.VersionDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class OrderServiceImpl implements OrderService{
 
+    /**
+     * Lines are loaded for this many orders at a time, keeping IN lists short.
+     */
+    private static final int LINE_BATCH_SIZE = 500;
+
     private final OrderRepository orderRepository;
 
-    private final UserRepository userRepository;
+    private final OrderPricer orderPricer;
+
+    private final BookSuggestionService bookSuggestionService;
+
+    private final InventoryService inventoryService;
+
+    private final BookSalesService bookSalesService;
 
     @Autowired
-    public OrderServiceImpl(OrderRepository orderRepository, UserRepository userRepository) {
+    public OrderServiceImpl(OrderRepository orderRepository, OrderPricer orderPricer,
+                            BookSuggestionService bookSuggestionService, InventoryService inventoryService,
+                            BookSalesService bookSalesService) {
         this.orderRepository = orderRepository;
-        this.userRepository = userRepository;
+        this.orderPricer = orderPricer;
+        this.bookSuggestionService = bookSuggestionService;
+        this.inventoryService = inventoryService;
+        this.bookSalesService = bookSalesService;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderDTO> findAllOrders() {
+        return withLines(orderRepository.findAllSummaries());
     }
 
     @Override
-    public List<Order> findAllOrders() {
-        return orderRepository.findAll();
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDTO> searchOrders(OrderSearchCriteria criteria, OrderCursor cursor, int size) {
+        // fetch one extra order to learn whether a next page exists
+        List<OrderDTO> orders = orderRepository.search(criteria, cursor, size + 1);
+        if (orders.size() <= size) {
+            return new CursorPage<>(withLines(orders), null);
+        }
+        orders = new ArrayList<>(orders.subList(0, size));
+        String nextCursor = OrderCursor.after(orders.get(size - 1)).encode();
+        return new CursorPage<>(withLines(orders), nextCursor);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Order findOrderById(Long orderId) {
-        return orderRepository.findOne(orderId);
+        return orderRepository.findOneWithBooksByOrderId(orderId);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public VersionDTO findOrderVersion(Long orderId) {
+        return orderRepository.findVersionByOrderId(orderId);
+    }
 
     @Override
+    @Transactional
     public Order saveOrder(Order order) {
-        for (OrderBook orderBook : order.getBooks()) {
-            orderBook.setOrder(order);
-            orderBook.getBook().getOrders().add(orderBook);
+        if (order.getOrderId() != null) {
+            Order stored = orderRepository.findOneWithBooksByOrderId(order.getOrderId());
+            if (stored != null) {
+                return replaceOrder(stored, order);
+            }
+            // there is nothing to replace, the order is stored as a new one
+            order.setOrderId(null);
         }
-
         order.setOrderDate(Calendar.getInstance().getTime());
+        List<RejectedOrderDTO> rejected = placeOrders(Collections.singletonList(order));
+        if (!rejected.isEmpty()) {
+            throw rejected.get(0).getReason();
+        }
+        return order;
+    }
 
-        return orderRepository.save(order);
+    @Override
+    @Transactional
+    public List<RejectedOrderDTO> placeOrders(List<Order> orders) {
+        List<RejectedOrderDTO> rejected = new ArrayList<>();
+        List<Order> reserved = new ArrayList<>();
+        for (Order order : orders) {
+            // only the owning side is set, Book.orders is never loaded
+            for (OrderBook orderBook : order.getBooks()) {
+                orderBook.setOrder(order);
+            }
+            try {
+                // before the first statement, so that no connection is held while waiting for the stock
+                orderPricer.validate(order);
+                inventoryService.reserve(order);
+                reserved.add(order);
+            } catch (IllegalArgumentException | OutOfStockException e) {
+                rejected.add(new RejectedOrderDTO(order, e));
+            }
+        }
+        List<Order> unpriced = orderPricer.price(reserved);
+        for (Order order : unpriced) {
+            inventoryService.release(order);
+            rejected.add(new RejectedOrderDTO(order,
+                    new IllegalArgumentException("Order references books that do not exist or have no price")));
+        }
+        reserved.removeAll(unpriced);
+
+        Date now = Calendar.getInstance().getTime();
+        for (Order order : reserved) {
+            if (order.getOrderDate() == null) {
+                order.setOrderDate(now);
+            }
+        }
+        for (Order order : orderRepository.save(reserved)) {
+            bookSuggestionService.addSales(order);
+            bookSalesService.addSales(order);
+        }
+        return rejected;
     }
 
     @Override
+    @Transactional
     public void deleteOrder(Order order) {
-        orderRepository.delete(order);
+        // the order given may be older than the stored one
+        Order stored = orderRepository.findOneWithBooksByOrderId(order.getOrderId());
+        if (stored == null) {
+            return;
+        }
+        inventoryService.release(stored);
+        bookSuggestionService.removeSales(stored);
+        bookSalesService.removeSales(stored);
+        orderRepository.delete(stored);
     }
 
     @Override
-    public List<Order> findByUserName(String userName) {
-        User user = userRepository.findByUserName(userName);
-        return orderRepository.findByUser(user);
+    @Transactional(readOnly = true)
+    public List<OrderDTO> findByUserName(String userName) {
+        return withLines(orderRepository.findSummariesByUserName(userName));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderDTO> findByUserId(Long userId) {
+        return withLines(orderRepository.findSummariesByUserId(userId));
+    }
+
+    /**
+     * The request replaces the values and lines of the stored order, whatever
+     * its version; the order is not merged, which would take the version from
+     * the request and could not insert the lines it adds.
+     */
+    private Order replaceOrder(Order stored, Order order) {
+        Order replaced = soldCopies(stored);
+        orderPricer.price(order, replaced);
+        inventoryService.reserve(replaced, order);
+
+        order.setOrderDate(Calendar.getInstance().getTime());
+        stored.setOrderDate(order.getOrderDate());
+        stored.setOrderStatus(order.isOrderStatus());
+        stored.setOrderPrice(order.getOrderPrice());
+        stored.setUser(order.getUser());
+        Map<Long, OrderBook> removedLines = new HashMap<>();
+        for (OrderBook line : stored.getBooks()) {
+            removedLines.put(line.getBook().getBookId(), line);
+        }
+        for (OrderBook line : order.getBooks()) {
+            OrderBook storedLine = removedLines.remove(line.getBook().getBookId());
+            if (storedLine == null) {
+                storedLine = new OrderBook(stored, line.getBook());
+                stored.getBooks().add(storedLine);
+            }
+            storedLine.setQuantity(line.getQuantity());
+            storedLine.setUnitPrice(line.getUnitPrice());
+        }
+        stored.getBooks().removeAll(removedLines.values());
+
+        bookSuggestionService.removeSales(replaced);
+        bookSalesService.removeSales(replaced);
+        bookSuggestionService.addSales(stored);
+        bookSalesService.addSales(stored);
+        return stored;
+    }
+
+    /**
+     * The date and lines of a stored order, with the prices they were sold at,
+     * as they are before it is replaced.
+     */
+    private static Order soldCopies(Order stored) {
+        Order sold = new Order();
+        sold.setOrderDate(stored.getOrderDate());
+        for (OrderBook line : stored.getBooks()) {
+            Book book = new Book();
+            book.setBookId(line.getBook().getBookId());
+            OrderBook orderBook = new OrderBook(sold, book);
+            orderBook.setQuantity(line.getQuantity());
+            orderBook.setUnitPrice(line.getUnitPrice());
+            sold.getBooks().add(orderBook);
+        }
+        return sold;
+    }
+
+    /**
+     * Attaches their lines to the orders with one statement per LINE_BATCH_SIZE orders.
+     */
+    private List<OrderDTO> withLines(List<OrderDTO> orders) {
+        Map<Long, OrderDTO> ordersById = new HashMap<>();
+        for (OrderDTO order : orders) {
+            ordersById.put(order.getOrderId(), order);
+        }
+        List<Long> orderIds = new ArrayList<>(ordersById.keySet());
+        for (int from = 0; from < orderIds.size(); from += LINE_BATCH_SIZE) {
+            List<Long> batch = orderIds.subList(from, Math.min(from + LINE_BATCH_SIZE, orderIds.size()));
+            for (OrderLineDTO line : orderRepository.findLinesByOrderIdIn(batch)) {
+                ordersById.get(line.getOrderId()).getBooks().add(line);
+            }
+        }
+        return orders;
     }
 }
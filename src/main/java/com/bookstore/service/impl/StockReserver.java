@@ -0,0 +1,222 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.repository.BookStockRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Takes copies of books from their stock for many concurrent checkouts.
+ * <p>
+ * Every take is a conditional update committed in a transaction of its own, so
+ * the row of a book is locked for one statement rather than for a whole order.
+ * The takes of a hot book are moreover combined: while one thread updates the
+ * stock, the checkouts arriving for the same book queue up, and the next of
+ * them takes the copies of all queued checkouts with a single update. A
+ * bestseller therefore costs one commit per batch of checkouts instead of one
+ * per checkout, and the database stays the only authority on the stock, also
+ * with several instances of the application.
+ */
+class StockReserver {
+
+    enum Outcome {
+        /**
+         * The copies were taken from the stock.
+         */
+        TAKEN,
+        /**
+         * The stock of the book is not tracked; nothing was taken.
+         */
+        UNTRACKED,
+        /**
+         * Not enough copies were left; nothing was taken.
+         */
+        REFUSED
+    }
+
+    private final BookStockRepository bookStockRepository;
+
+    private final TransactionTemplate ownTransaction;
+
+    private final ConcurrentMap<Long, Checkouts> checkoutsByBook = new ConcurrentHashMap<>();
+
+    StockReserver(BookStockRepository bookStockRepository, PlatformTransactionManager transactionManager) {
+        this.bookStockRepository = bookStockRepository;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Takes copies of the book, waiting for the checkouts of the same book queued before.
+     */
+    Outcome take(Long bookId, long quantity) {
+        Checkouts checkouts = checkoutsByBook.computeIfAbsent(bookId, id -> new Checkouts());
+        Checkout checkout = new Checkout(quantity);
+        boolean combining;
+        synchronized (checkouts) {
+            checkouts.queued.add(checkout);
+            combining = !checkouts.combining;
+            checkouts.combining = true;
+        }
+        if (!combining) {
+            combining = checkout.awaitTurn();
+        }
+        if (combining) {
+            combine(bookId, checkouts);
+        }
+        return checkout.outcome();
+    }
+
+    /**
+     * Gives back copies that were taken.
+     */
+    void giveBack(Long bookId, long quantity) {
+        ownTransaction.execute(status -> {
+            bookStockRepository.give(bookId, quantity);
+            return null;
+        });
+    }
+
+    /**
+     * Settles every queued checkout, including the caller's, then hands the
+     * combining over to the first checkout queued meanwhile.
+     */
+    private void combine(Long bookId, Checkouts checkouts) {
+        List<Checkout> batch;
+        synchronized (checkouts) {
+            batch = new ArrayList<>(checkouts.queued);
+            checkouts.queued.clear();
+        }
+        try {
+            settle(bookId, batch);
+        } catch (RuntimeException e) {
+            for (Checkout checkout : batch) {
+                checkout.fail(e);
+            }
+        } finally {
+            synchronized (checkouts) {
+                Checkout next = checkouts.queued.peek();
+                if (next != null) {
+                    next.takeTurn();
+                } else {
+                    checkouts.combining = false;
+                    // a checkout still holding the removed instance combines on its own
+                    checkoutsByBook.remove(bookId, checkouts);
+                }
+            }
+        }
+    }
+
+    private void settle(Long bookId, List<Checkout> batch) {
+        List<Checkout> pending = batch;
+        while (!pending.isEmpty()) {
+            long total = 0;
+            for (Checkout checkout : pending) {
+                total += checkout.quantity;
+            }
+            long quantity = total;
+            Long[] copiesLeft = new Long[1];
+            boolean taken = ownTransaction.execute(status -> {
+                if (bookStockRepository.take(bookId, quantity)) {
+                    return true;
+                }
+                copiesLeft[0] = bookStockRepository.findQuantity(bookId);
+                return false;
+            });
+            if (taken || copiesLeft[0] == null) {
+                for (Checkout checkout : pending) {
+                    checkout.settle(taken ? Outcome.TAKEN : Outcome.UNTRACKED);
+                }
+                return;
+            }
+            long left = copiesLeft[0];
+            // first come, first served among the checkouts that still fit
+            List<Checkout> fitting = new ArrayList<>();
+            for (Checkout checkout : pending) {
+                if (checkout.quantity <= left) {
+                    fitting.add(checkout);
+                    left -= checkout.quantity;
+                } else {
+                    checkout.settle(Outcome.REFUSED);
+                }
+            }
+            // another instance may take copies meanwhile, so the fitting ones are taken again conditionally
+            pending = fitting;
+        }
+    }
+
+    /**
+     * The checkouts queued for a book, guarded by the instance itself.
+     */
+    private static class Checkouts {
+
+        private final Queue<Checkout> queued = new ArrayDeque<>();
+
+        private boolean combining;
+    }
+
+    private static class Checkout {
+
+        private final long quantity;
+
+        private boolean turn;
+
+        private Outcome outcome;
+
+        private RuntimeException failure;
+
+        Checkout(long quantity) {
+            this.quantity = quantity;
+        }
+
+        /**
+         * @return true if the checkout is to combine the queue, false once it was settled by another one
+         */
+        synchronized boolean awaitTurn() {
+            boolean interrupted = false;
+            while (!turn && outcome == null && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    // the copies may already be taken on behalf of this checkout, so its outcome is awaited
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return outcome == null && failure == null;
+        }
+
+        synchronized void takeTurn() {
+            turn = true;
+            notifyAll();
+        }
+
+        synchronized void settle(Outcome outcome) {
+            this.outcome = outcome;
+            notifyAll();
+        }
+
+        synchronized void fail(RuntimeException failure) {
+            if (outcome == null) {
+                this.failure = failure;
+                notifyAll();
+            }
+        }
+
+        synchronized Outcome outcome() {
+            if (failure != null) {
+                throw failure;
+            }
+            return outcome;
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.bookstore.service.impl;
 
+import com.bookstore.config.CacheConfiguration;
 import com.bookstore.model.Authority;
 import com.bookstore.model.User;
 import com.bookstore.repository.AuthorityRepository;
 import com.bookstore.repository.UserRepository;
+import com.bookstore.security.BoundedPasswordEncoder;
 import com.bookstore.security.SecurityConstants;
 import com.bookstore.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashSet;
 import java.util.List;
@@ -19,29 +23,42 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final AuthorityRepository authorityRepository;
-    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final BoundedPasswordEncoder passwordEncoder;
 
     @Autowired
     public UserServiceImpl(UserRepository userRepository,
                            AuthorityRepository authorityRepository,
-                           BCryptPasswordEncoder bCryptPasswordEncoder) {
+                           BoundedPasswordEncoder passwordEncoder) {
 
         this.userRepository = userRepository;
         this.authorityRepository = authorityRepository;
-        this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.passwordEncoder = passwordEncoder;
     }
 
+    /**
+     * The user with its authorities, shared by authentication and the resources
+     * looking up the current principal.
+     */
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfiguration.USERS, unless = "#result == null")
     public User findByUserName(String userName) {
-        return userRepository.findByUserName(userName);
+        return userRepository.findOneWithAuthoritiesByUserName(userName);
     }
 
+    /**
+     * The password is hashed first, on the bounded hashing pool like logins:
+     * the transaction takes its connection on the first query.
+     *
+     * @throws com.bookstore.security.LoginRejectedException if the hashing queue is full
+     */
     @Override
+    @Transactional
     public User createUser(User user) {
+        String encryptedPassword = passwordEncoder.encode(user.getUserPassword());
         User newUser = new User();
         Authority authority = authorityRepository.findOne(SecurityConstants.USER);
         Set<Authority> authorities = new HashSet<>();
-        String encryptedPassword = bCryptPasswordEncoder.encode(user.getUserPassword());
         newUser.setUserName(user.getUserName());
         newUser.setUserPassword(encryptedPassword);
         newUser.setUserFirstName(user.getUserFirstName());
@@ -53,21 +70,34 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfiguration.USERS, allEntries = true)
     public void updateUser(User user) {
         userRepository.save(user);
     }
 
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfiguration.USERS, allEntries = true)
+    public void updatePasswordHash(String userName, String passwordHash) {
+        userRepository.updatePasswordHash(userName, passwordHash);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<User> findAllUsers() {
-        return userRepository.findAll();
+        return userRepository.findAllWithAuthorities();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public User findUserById(Long userId) {
-        return userRepository.findOne(userId);
+        return userRepository.findOneWithAuthoritiesByUserId(userId);
     }
 
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfiguration.USERS, allEntries = true)
     public void deleteUserById(Long userId) {
         userRepository.delete(userId);
     }
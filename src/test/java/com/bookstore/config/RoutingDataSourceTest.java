@@ -0,0 +1,138 @@
+package com.bookstore.config;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+
+    private EmbeddedDatabase replica;
+
+    @Before
+    public void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+    }
+
+    @After
+    public void tearDown() {
+        RoutingDataSource.clearPrimaryOnly();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    public void readOnlyTransactionsGoToTheReplicaAndOthersToThePrimary() {
+        DataSource dataSource = routing(replica);
+
+        assertThat(servedBy(dataSource, true)).isEqualTo("replica");
+        assertThat(servedBy(dataSource, false)).isEqualTo("primary");
+        assertThat(new JdbcTemplate(dataSource).queryForObject("select name from server", String.class))
+                .isEqualTo("primary");
+    }
+
+    @Test
+    public void readsPinnedToThePrimaryStayOnThePrimary() {
+        DataSource dataSource = routing(replica);
+
+        RoutingDataSource.setPrimaryOnly();
+        assertThat(servedBy(dataSource, true)).isEqualTo("primary");
+        RoutingDataSource.clearPrimaryOnly();
+        assertThat(servedBy(dataSource, true)).isEqualTo("replica");
+    }
+
+    @Test
+    public void readsFromThePrimaryKeepAnEarlierPin() {
+        DataSource dataSource = routing(replica);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(true);
+
+        String servedBy = transaction.execute(status -> RoutingDataSource.readFromPrimary(() ->
+                new JdbcTemplate(dataSource).queryForObject("select name from server", String.class)));
+        assertThat(servedBy).isEqualTo("primary");
+        assertThat(servedBy(dataSource, true)).isEqualTo("replica");
+
+        RoutingDataSource.setPrimaryOnly();
+        RoutingDataSource.readFromPrimary(() -> null);
+        assertThat(servedBy(dataSource, true)).isEqualTo("primary");
+    }
+
+    @Test
+    public void readsFallBackToThePrimaryWhenTheReplicaIsDown() {
+        DataSource dataSource = routing(new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                throw new SQLException("down");
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                throw new SQLException("down");
+            }
+        });
+
+        assertThat(servedBy(dataSource, true)).isEqualTo("primary");
+    }
+
+    @Test
+    public void connectionsWithCredentialsAreRoutedAndFallBackAlike() throws SQLException {
+        RoutingDataSource routing = new RoutingDataSource(primary, new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                throw new SQLException("down");
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                throw new SQLException("down");
+            }
+        });
+        routing.afterPropertiesSet();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try (Connection connection = routing.getConnection("sa", "")) {
+            assertThat(new JdbcTemplate(new SingleConnectionDataSource(connection, true))
+                    .queryForObject("select name from server", String.class)).isEqualTo("primary");
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    private DataSource routing(DataSource replica) {
+        RoutingDataSource routing = new RoutingDataSource(primary, replica);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private static String servedBy(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("select name from server", String.class));
+    }
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName(name).build();
+        new JdbcTemplate(database).execute("create table server (name varchar(16))");
+        new JdbcTemplate(database).update("insert into server (name) values (?)", name);
+        return database;
+    }
+}
@@ -0,0 +1,78 @@
+package com.bookstore.repository;
+
+import com.bookstore.service.dto.QueuedOrderDTO;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsOrdersInBatchesFromTheCheckpoint() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (OrderJournal journal = new OrderJournal(directory)) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(new QueuedOrderDTO("handle" + i, 1L, i));
+            }
+
+            OrderJournal.Batch first = journal.read(journal.getCheckpoint(), 3);
+            assertThat(first.getOrders()).extracting("handle").containsExactly("handle0", "handle1", "handle2");
+            journal.commit(first.getEndOffset());
+
+            OrderJournal.Batch second = journal.read(journal.getCheckpoint(), 3);
+            assertThat(second.getOrders()).extracting("handle").containsExactly("handle3", "handle4");
+            assertThat(journal.pendingBytes()).isEqualTo(second.getEndOffset() - first.getEndOffset());
+        }
+    }
+
+    @Test
+    public void resumesFromTheCheckpointAfterReopening() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (OrderJournal journal = new OrderJournal(directory)) {
+            journal.append(new QueuedOrderDTO("written", 1L, 0));
+            journal.append(new QueuedOrderDTO("pending", 1L, 0));
+            journal.commit(journal.read(0, 1).getEndOffset());
+        }
+        try (OrderJournal journal = new OrderJournal(directory)) {
+            assertThat(journal.read(journal.getCheckpoint(), 10).getOrders())
+                    .extracting("handle").containsExactly("pending");
+        }
+    }
+
+    @Test
+    public void truncatesOnceEverythingIsCommitted() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (OrderJournal journal = new OrderJournal(directory)) {
+            journal.append(new QueuedOrderDTO("written", 1L, 0));
+            journal.commit(journal.read(0, 10).getEndOffset());
+
+            assertThat(journal.getCheckpoint()).isZero();
+            assertThat(journal.pendingBytes()).isZero();
+            assertThat(Files.size(directory.resolve("orders.journal"))).isZero();
+        }
+    }
+
+    @Test
+    public void dropsALastLineTornByACrash() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (OrderJournal journal = new OrderJournal(directory)) {
+            journal.append(new QueuedOrderDTO("complete", 1L, 0));
+        }
+        Files.write(directory.resolve("orders.journal"), "{\"handle\":\"to".getBytes(), StandardOpenOption.APPEND);
+
+        try (OrderJournal journal = new OrderJournal(directory)) {
+            journal.append(new QueuedOrderDTO("next", 1L, 0));
+            assertThat(journal.read(0, 10).getOrders()).extracting("handle").containsExactly("complete", "next");
+        }
+    }
+}
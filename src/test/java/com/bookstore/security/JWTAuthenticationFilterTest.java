@@ -0,0 +1,62 @@
+package com.bookstore.security;
+
+import com.bookstore.service.dto.LoginCredentialsDTO;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class JWTAuthenticationFilterTest {
+
+    @Test
+    public void readCredentialsIgnoresOtherUserProperties() throws IOException {
+        String body = "{\"userName\":\"user\",\"userPassword\":\"secret12\",\"userFirstName\":\"First\","
+                + "\"authorities\":[{\"name\":\"ROLE_ADMIN\"}]}";
+
+        LoginCredentialsDTO creds = JWTAuthenticationFilter.readCredentials(stream(body), body.length());
+
+        assertThat(creds.getUserName()).isEqualTo("user");
+        assertThat(creds.getUserPassword()).isEqualTo("secret12");
+    }
+
+    @Test
+    public void readCredentialsRejectsADeclaredOversizedBodyWithoutReadingIt() throws IOException {
+        InputStream body = new InputStream() {
+            @Override
+            public int read() {
+                throw new AssertionError("body read");
+            }
+        };
+
+        assertRejectedAsTooLarge(body, JWTAuthenticationFilter.MAX_BODY_BYTES + 1);
+    }
+
+    @Test
+    public void readCredentialsRejectsAnUndeclaredOversizedBody() throws IOException {
+        char[] padding = new char[JWTAuthenticationFilter.MAX_BODY_BYTES];
+        Arrays.fill(padding, ' ');
+        String body = "{\"userName\":\"user\"," + new String(padding) + "\"userPassword\":\"secret12\"}";
+
+        assertRejectedAsTooLarge(stream(body), -1);
+    }
+
+    private static void assertRejectedAsTooLarge(InputStream body, long contentLength) throws IOException {
+        try {
+            JWTAuthenticationFilter.readCredentials(body, contentLength);
+            fail("expected the body to be rejected");
+        } catch (LoginRejectedException e) {
+            assertThat(e.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
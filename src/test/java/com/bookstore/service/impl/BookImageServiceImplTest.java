@@ -0,0 +1,69 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.config.ApplicationProperties;
+import com.bookstore.model.Book;
+import com.bookstore.repository.BookImageRepository;
+import com.bookstore.service.dto.BookImageDTO;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+public class BookImageServiceImplTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private BookImageServiceImpl bookImageService;
+
+    private Long bookId;
+
+    @Before
+    public void setUp() {
+        // variants are left out, the executor drops them
+        bookImageService = new BookImageServiceImpl(new BookImageRepository(new JdbcTemplate(dataSource)),
+                task -> { }, new ApplicationProperties());
+        Book book = new Book();
+        book.setBookTitle("title");
+        book.setBookImageContentType("image/png");
+        bookId = entityManager.persistFlushFind(book).getBookId();
+    }
+
+    @Test
+    public void streamsBackTheStoredImageChunkByChunk() throws Exception {
+        byte[] image = new byte[BookImageServiceImpl.CHUNK_SIZE * 2 + 1000];
+        new Random(7).nextBytes(image);
+
+        assertThat(bookImageService.findImage(bookId)).isNull();
+        bookImageService.saveImage(bookId, image);
+
+        BookImageDTO stored = bookImageService.findImage(bookId);
+        assertThat(stored.getLength()).isEqualTo(image.length);
+        assertThat(stored.getContentType()).isEqualTo("image/png");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bookImageService.writeImage(stored, 0, stored.getLength(), out);
+        assertThat(out.toByteArray()).isEqualTo(image);
+
+        out.reset();
+        bookImageService.writeImage(stored, 100, BookImageServiceImpl.CHUNK_SIZE, out);
+        assertThat(out.toByteArray()).isEqualTo(Arrays.copyOfRange(image, 100, 100 + BookImageServiceImpl.CHUNK_SIZE));
+    }
+}
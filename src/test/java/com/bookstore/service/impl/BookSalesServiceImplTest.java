@@ -0,0 +1,120 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.config.ApplicationProperties;
+import com.bookstore.model.Book;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderBook;
+import com.bookstore.repository.BookSalesRepository;
+import com.bookstore.service.dto.BestsellerDTO;
+import com.bookstore.service.dto.SalesPeriod;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookSalesServiceImplTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2018, 3, 15);
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private BookSalesServiceImpl bookSalesService;
+
+    @Before
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("sales").build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("create table book (id bigint primary key, title varchar(255), author varchar(255))");
+        jdbcTemplate.execute("create table orders (id bigint primary key, date timestamp)");
+        jdbcTemplate.execute("create table order_book (order_id bigint, book_id bigint, quantity bigint)");
+        jdbcTemplate.execute("create table book_sales_daily (sales_date date, book_id bigint, quantity bigint not null, " +
+                "primary key (sales_date, book_id))");
+        for (long bookId = 1; bookId <= 3; bookId++) {
+            jdbcTemplate.update("insert into book (id, title, author) values (?, ?, ?)",
+                    bookId, "Title " + bookId, "Author " + bookId);
+        }
+        bookSalesService = new BookSalesServiceImpl(new BookSalesRepository(jdbcTemplate),
+                new DataSourceTransactionManager(database), new ApplicationProperties());
+    }
+
+    @After
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void ranksTheSalesOfThePeriodOnceFlushed() {
+        bookSalesService.addSales(order(TODAY, 1L, 2L, 2L, 1L));
+        bookSalesService.addSales(order(TODAY.minusDays(3), 3L, 5L));
+        bookSalesService.addSales(order(TODAY.minusDays(7), 1L, 100L));
+
+        assertThat(bookSalesService.findBestsellers(SalesPeriod.DAY, TODAY, 10)).isEmpty();
+        bookSalesService.flush();
+
+        assertThat(ids(bookSalesService.findBestsellers(SalesPeriod.DAY, TODAY, 10))).containsExactly(1L, 2L);
+        List<BestsellerDTO> week = bookSalesService.findBestsellers(SalesPeriod.WEEK, TODAY, 2);
+        assertThat(ids(week)).containsExactly(3L, 1L);
+        assertThat(week.get(0).getBookTitle()).isEqualTo("Title 3");
+        assertThat(week.get(0).getQuantity()).isEqualTo(5L);
+    }
+
+    @Test
+    public void takesRemovedOrdersBack() {
+        bookSalesService.addSales(order(TODAY, 1L, 3L));
+        bookSalesService.flush();
+        bookSalesService.addSales(order(TODAY, 2L, 1L));
+        bookSalesService.removeSales(order(TODAY, 1L, 3L));
+        bookSalesService.flush();
+
+        assertThat(ids(bookSalesService.findBestsellers(SalesPeriod.DAY, TODAY.plusDays(1), 10))).isEmpty();
+        assertThat(ids(bookSalesService.findBestsellers(SalesPeriod.WEEK, TODAY.plusDays(1), 10))).containsExactly(2L);
+    }
+
+    @Test
+    public void rollsUpTheOrderHistoryOnFirstStart() throws Exception {
+        jdbcTemplate.update("insert into orders (id, date) values (1, ?), (2, ?)",
+                Timestamp.valueOf(TODAY.atTime(9, 0)), Timestamp.valueOf(TODAY.atTime(18, 0)));
+        jdbcTemplate.update("insert into order_book (order_id, book_id, quantity) values (1, 2, 1), (2, 2, 2), (2, 3, 1)");
+
+        bookSalesService.start();
+        bookSalesService.stop();
+
+        List<BestsellerDTO> day = bookSalesService.findBestsellers(SalesPeriod.DAY, TODAY, 10);
+        assertThat(ids(day)).containsExactly(2L, 3L);
+        assertThat(day.get(0).getQuantity()).isEqualTo(3L);
+    }
+
+    private static Order order(LocalDate day, long... bookIdsAndQuantities) {
+        Order order = new Order();
+        order.setOrderDate(Timestamp.valueOf(day.atTime(12, 0)));
+        for (int i = 0; i < bookIdsAndQuantities.length; i += 2) {
+            Book book = new Book();
+            book.setBookId(bookIdsAndQuantities[i]);
+            OrderBook line = new OrderBook(order, book);
+            line.setQuantity(bookIdsAndQuantities[i + 1]);
+            order.getBooks().add(line);
+        }
+        return order;
+    }
+
+    private static List<Long> ids(List<BestsellerDTO> bestsellers) {
+        List<Long> ids = new ArrayList<>();
+        for (BestsellerDTO bestseller : bestsellers) {
+            ids.add(bestseller.getBookId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,140 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.service.dto.SearchCursor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookSearchIndexTest {
+
+    @Test
+    public void matchesEveryWordWithTheLastOneAsPrefix() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.put(1L, "The Pragmatic Programmer", "Andrew Hunt", "978-0201616224", "From journeyman to master");
+        index.put(2L, "Programming Pearls", "Jon Bentley", "978-0201657883", null);
+        index.put(3L, "Clean Code", "Robert Martin", "978-0132350884", "A handbook of agile software craftsmanship");
+
+        assertThat(bookIds(index.search("progr", null, 10))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(bookIds(index.search("pragmatic progr", null, 10))).containsExactly(1L);
+        assertThat(bookIds(index.search("progr pragmatic", null, 10))).isEmpty();
+        assertThat(bookIds(index.search("AGILE", null, 10))).containsExactly(3L);
+        assertThat(bookIds(index.search("978-0-13-235088-4", null, 10))).containsExactly(3L);
+        assertThat(bookIds(index.search("  ", null, 10))).isEmpty();
+    }
+
+    @Test
+    public void ranksTitlesAboveDescriptionsAndFoldsAccents() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.put(1L, "Cooking at home", null, null, "Recipes from Zürich");
+        index.put(2L, "Zurich", null, null, null);
+
+        assertThat(bookIds(index.search("zurich", null, 10))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    public void pagesWithTheCursorOfTheLastHit() {
+        BookSearchIndex index = new BookSearchIndex();
+        for (long bookId = 1; bookId <= 25; bookId++) {
+            index.put(bookId, "Java volume " + bookId, null, null, bookId % 2 == 0 ? "java" : null);
+        }
+
+        List<Long> seen = new ArrayList<>();
+        SearchCursor cursor = null;
+        List<BookSearchIndex.Hit> page;
+        while (!(page = index.search("java", cursor, 10)).isEmpty()) {
+            seen.addAll(bookIds(page));
+            BookSearchIndex.Hit last = page.get(page.size() - 1);
+            cursor = SearchCursor.decode(new SearchCursor(last.getScore(), last.getBookId()).encode());
+        }
+        assertThat(seen).hasSize(25).doesNotHaveDuplicates();
+        // books mentioning java in their description as well come first
+        assertThat(seen.subList(0, 12)).containsExactly(2L, 4L, 6L, 8L, 10L, 12L, 14L, 16L, 18L, 20L, 22L, 24L);
+    }
+
+    @Test
+    public void replacesAndRemovesBooksAcrossCompactions() {
+        BookSearchIndex index = new BookSearchIndex();
+        for (long bookId = 1; bookId <= 3000; bookId++) {
+            index.put(bookId, "Old title " + bookId, null, null, null);
+        }
+        for (long bookId = 1; bookId <= 3000; bookId++) {
+            if (bookId % 3 == 0) {
+                index.remove(bookId);
+            } else {
+                index.put(bookId, "New title " + bookId, null, null, null);
+            }
+        }
+
+        assertThat(index.size()).isEqualTo(2000);
+        assertThat(index.search("old", null, 10)).isEmpty();
+        assertThat(bookIds(index.search("new title 2999", null, 10))).containsExactly(2999L);
+        assertThat(index.search("3000", null, 10)).isEmpty();
+        assertThat(index.search("new", null, 5000)).hasSize(2000);
+    }
+
+    @Test
+    public void expandsAPrefixToItsMostFrequentCompletions() {
+        BookSearchIndex index = new BookSearchIndex();
+        // rare completions sorting before the common one, enough for the expansions to be cached
+        for (long bookId = 1; bookId <= 2000; bookId++) {
+            index.put(bookId, String.format("haa%04d", bookId), null, null, null);
+        }
+        assertThat(index.search("ha", null, 200)).hasSize(64);
+        for (long bookId = 2001; bookId <= 2010; bookId++) {
+            index.put(bookId, "Harry", null, null, null);
+        }
+
+        // harry and 63 of the rare ones, which score higher for their idf
+        List<Long> hits = bookIds(index.search("ha", null, 200));
+        assertThat(hits).hasSize(73);
+        assertThat(hits.subList(63, 73))
+                .containsExactly(2001L, 2002L, 2003L, 2004L, 2005L, 2006L, 2007L, 2008L, 2009L, 2010L);
+    }
+
+    @Test
+    public void stopsEarlyWithTheSameHitsAsAFullRanking() {
+        BookSearchIndex index = new BookSearchIndex();
+        Random random = new Random(7);
+        for (long bookId = 1; bookId <= 2000; bookId++) {
+            index.put(bookId, words(random, 3), words(random, 1), null, words(random, 8));
+        }
+        for (long bookId = 1; bookId <= 2000; bookId += 5) {
+            index.remove(bookId);
+        }
+
+        for (String query : new String[] {"w1", "w13", "w1 w2", "w12 w1", "w7 w3 w1"}) {
+            List<BookSearchIndex.Hit> all = index.search(query, null, 5000);
+            assertThat(all).isNotEmpty();
+
+            List<Long> paged = new ArrayList<>();
+            SearchCursor cursor = null;
+            List<BookSearchIndex.Hit> page;
+            while (!(page = index.search(query, cursor, 7)).isEmpty()) {
+                paged.addAll(bookIds(page));
+                BookSearchIndex.Hit last = page.get(page.size() - 1);
+                cursor = new SearchCursor(last.getScore(), last.getBookId());
+            }
+            assertThat(paged).as(query).isEqualTo(bookIds(all));
+        }
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            words.append('w').append(random.nextInt(20)).append(' ');
+        }
+        return words.toString();
+    }
+
+    private static List<Long> bookIds(List<BookSearchIndex.Hit> hits) {
+        List<Long> bookIds = new ArrayList<>();
+        for (BookSearchIndex.Hit hit : hits) {
+            bookIds.add(hit.getBookId());
+        }
+        return bookIds;
+    }
+}
@@ -0,0 +1,131 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.service.dto.BookSuggestionDTO;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static com.bookstore.service.dto.BookSuggestionDTO.Type.AUTHOR;
+import static com.bookstore.service.dto.BookSuggestionDTO.Type.TITLE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookSuggestionIndexTest {
+
+    @Test
+    public void completesPrefixesBestSellingFirst() {
+        BookSuggestionIndex index = BookSuggestionIndex.build(Arrays.asList(
+                entry(TITLE, "Harry Potter and the Goblet of Fire", 40),
+                entry(TITLE, "Hard Times", 3),
+                entry(TITLE, "Harry Potter and the Philosopher's Stone", 90),
+                entry(AUTHOR, "Harper Lee", 12),
+                entry(TITLE, "The Hobbit", 70)));
+
+        assertThat(texts(index.complete("har", 10))).containsExactly(
+                "Harry Potter and the Philosopher's Stone", "Harry Potter and the Goblet of Fire", "Harper Lee", "Hard Times");
+        assertThat(texts(index.complete("HARRY  potter", 1))).containsExactly("Harry Potter and the Philosopher's Stone");
+        assertThat(index.complete("hat", 10)).isEmpty();
+        assertThat(index.complete("  ", 10)).isEmpty();
+        assertThat(index.complete("harper", 10)).extracting("type").containsExactly(AUTHOR);
+    }
+
+    @Test
+    public void foldsAccentsAndBreaksTiesAlphabetically() {
+        BookSuggestionIndex index = BookSuggestionIndex.build(Arrays.asList(
+                entry(AUTHOR, "Émile Zola", 5),
+                entry(TITLE, "Emma", 5),
+                entry(TITLE, "Emil and the Detectives", 5)));
+
+        assertThat(texts(index.complete("emi", 10))).containsExactly("Emil and the Detectives", "Émile Zola");
+        assertThat(texts(index.complete("e", 10))).containsExactly("Emil and the Detectives", "Émile Zola", "Emma");
+    }
+
+    @Test
+    public void matchesAScanOfEveryEntry() {
+        Random random = new Random(7);
+        List<BookSuggestionIndex.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            entries.add(entry(TITLE, "t" + Integer.toString(random.nextInt(100_000), 36), random.nextInt(50)));
+        }
+        BookSuggestionIndex index = BookSuggestionIndex.build(entries);
+
+        for (String prefix : Arrays.asList("t", "t1", "ta", "tz9")) {
+            List<BookSuggestionDTO> completions = index.complete(prefix, 25);
+            long expected = entries.stream().filter(entry -> entry.getKey().startsWith(prefix)).count();
+            assertThat(completions).hasSize((int) Math.min(25, expected));
+            for (int i = 1; i < completions.size(); i++) {
+                assertThat(completions.get(i).getPopularity()).isLessThanOrEqualTo(completions.get(i - 1).getPopularity());
+            }
+            long heaviest = entries.stream().filter(entry -> entry.getKey().startsWith(prefix))
+                    .mapToLong(BookSuggestionIndex.Entry::getWeight).max().orElse(-1);
+            if (!completions.isEmpty()) {
+                assertThat(completions.get(0).getPopularity()).isEqualTo(heaviest);
+            }
+        }
+    }
+
+    @Test
+    public void reranksInPlaceWhenWeightsChange() {
+        BookSuggestionIndex index = BookSuggestionIndex.build(Arrays.asList(
+                entry(TITLE, "Dune", 10),
+                entry(TITLE, "Dune Messiah", 5),
+                entry(AUTHOR, "Frank Herbert", 7)));
+
+        index.addWeight(index.find(TITLE, "dune messiah"), 6);
+        assertThat(texts(index.complete("dune", 10))).containsExactly("Dune Messiah", "Dune");
+        index.addWeight(index.find(TITLE, "dune messiah"), -11);
+        assertThat(index.complete("dune", 10)).extracting("popularity").containsExactly(10L, 0L);
+        assertThat(index.find(AUTHOR, "dune")).isEqualTo(-1);
+        assertThat(index.find(TITLE, "frank herbert")).isEqualTo(-1);
+    }
+
+    @Test
+    public void mergingMatchesABuildOfTheSameEntries() {
+        Random random = new Random(11);
+        List<BookSuggestionIndex.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            entries.add(entry(i % 3 == 0 ? AUTHOR : TITLE, "t" + Integer.toString(i * 7919 % 100_000, 36),
+                    random.nextInt(50)));
+        }
+        BookSuggestionIndex index = BookSuggestionIndex.build(entries.subList(0, 2000));
+        List<BookSuggestionIndex.Entry> added = entries.subList(2000, 3000);
+
+        int[] positions = new int[index.size()];
+        BookSuggestionIndex merged = index.merge(entry -> entry % 4 != 0, added, positions);
+
+        List<BookSuggestionIndex.Entry> expected = new ArrayList<>(added);
+        List<BookSuggestionIndex.Entry> sorted = new ArrayList<>(entries.subList(0, 2000));
+        sorted.sort(Comparator.comparing(BookSuggestionIndex.Entry::getKey).thenComparing(BookSuggestionIndex.Entry::getType));
+        for (int entry = 0; entry < sorted.size(); entry++) {
+            BookSuggestionIndex.Entry kept = sorted.get(entry);
+            if (entry % 4 != 0) {
+                expected.add(kept);
+                assertThat(positions[entry]).isEqualTo(merged.find(kept.getType(), kept.getKey()));
+            } else {
+                assertThat(positions[entry]).isEqualTo(-1);
+                assertThat(merged.find(kept.getType(), kept.getKey())).isEqualTo(-1);
+            }
+        }
+        BookSuggestionIndex built = BookSuggestionIndex.build(expected);
+        assertThat(merged.size()).isEqualTo(built.size());
+        for (String prefix : Arrays.asList("t", "t1", "ta", "tz9", "t2")) {
+            assertThat(merged.complete(prefix, 25)).usingFieldByFieldElementComparator()
+                    .containsExactlyElementsOf(built.complete(prefix, 25));
+        }
+    }
+
+    private static BookSuggestionIndex.Entry entry(BookSuggestionDTO.Type type, String text, long sales) {
+        return new BookSuggestionIndex.Entry(type, BookSuggestionIndex.fold(text), text, sales);
+    }
+
+    private static List<String> texts(List<BookSuggestionDTO> suggestions) {
+        List<String> texts = new ArrayList<>();
+        for (BookSuggestionDTO suggestion : suggestions) {
+            texts.add(suggestion.getText());
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,103 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.config.ApplicationProperties;
+import com.bookstore.model.Book;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderBook;
+import com.bookstore.service.dto.BookSuggestionDTO;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookSuggestionServiceImplTest {
+
+    private BookSuggestionServiceImpl bookSuggestionService;
+
+    @Before
+    public void setUp() {
+        // not started, the books are indexed one by one instead of loaded
+        bookSuggestionService = new BookSuggestionServiceImpl(null, new ApplicationProperties());
+        bookSuggestionService.index(book(1L, "Dune", "Frank Herbert"));
+        bookSuggestionService.index(book(2L, "Dune Messiah", "Frank Herbert"));
+        bookSuggestionService.index(book(3L, "Emma", "Jane Austen"));
+        bookSuggestionService.refresh();
+    }
+
+    @Test
+    public void salesReRankSuggestionsWithoutARefresh() {
+        bookSuggestionService.addSales(order(2L, 5L));
+
+        assertThat(suggestions("dune")).containsExactly("Dune Messiah 5", "Dune 0");
+        assertThat(suggestions("frank")).containsExactly("Frank Herbert 5");
+
+        bookSuggestionService.removeSales(order(2L, 5L));
+        assertThat(suggestions("dune")).containsExactly("Dune 0", "Dune Messiah 0");
+    }
+
+    @Test
+    public void newTextsShowUpAfterTheNextRefreshWithTheSalesOfTheirBooks() {
+        bookSuggestionService.addSales(order(2L, 5L));
+        bookSuggestionService.index(book(2L, "Children of Dune", "Frank Herbert"));
+        bookSuggestionService.index(book(4L, "Persuasion", "Jane Austen"));
+
+        assertThat(suggestions("children")).isEmpty();
+        assertThat(suggestions("frank")).containsExactly("Frank Herbert 5");
+        bookSuggestionService.refresh();
+
+        assertThat(suggestions("children")).containsExactly("Children of Dune 5");
+        assertThat(suggestions("dune")).containsExactly("Dune 0");
+        assertThat(suggestions("per")).containsExactly("Persuasion 0");
+
+        // the books follow their entries into the new index
+        bookSuggestionService.addSales(order(3L, 2L));
+        bookSuggestionService.addSales(order(4L, 1L));
+        assertThat(suggestions("emma")).containsExactly("Emma 2");
+        assertThat(suggestions("jane")).containsExactly("Jane Austen 3");
+        assertThat(suggestions("per")).containsExactly("Persuasion 1");
+    }
+
+    @Test
+    public void textsWithoutBooksAreDroppedByTheNextRefresh() {
+        bookSuggestionService.addSales(order(1L, 3L));
+        bookSuggestionService.remove(1L);
+        bookSuggestionService.remove(2L);
+
+        assertThat(suggestions("frank")).containsExactly("Frank Herbert 0");
+        bookSuggestionService.refresh();
+        assertThat(suggestions("dune")).isEmpty();
+        assertThat(suggestions("frank")).isEmpty();
+
+        // the ordinal of a removed book is handed out again without its sales
+        bookSuggestionService.index(book(5L, "Emma", "Jane Austen"));
+        bookSuggestionService.addSales(order(1L, 4L));
+        assertThat(suggestions("emma")).containsExactly("Emma 0");
+    }
+
+    private List<String> suggestions(String prefix) {
+        List<String> suggestions = new ArrayList<>();
+        for (BookSuggestionDTO suggestion : bookSuggestionService.suggest(prefix, 10)) {
+            suggestions.add(suggestion.getText() + " " + suggestion.getPopularity());
+        }
+        return suggestions;
+    }
+
+    private static Book book(Long bookId, String title, String author) {
+        Book book = new Book();
+        book.setBookId(bookId);
+        book.setBookTitle(title);
+        book.setBookAuthor(author);
+        return book;
+    }
+
+    private static Order order(Long bookId, Long quantity) {
+        Order order = new Order();
+        OrderBook line = new OrderBook(order, book(bookId, null, null));
+        line.setQuantity(quantity);
+        order.getBooks().add(line);
+        return order;
+    }
+}
@@ -0,0 +1,54 @@
+package com.bookstore.service.impl;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class FeedReaderTest {
+
+    @Test
+    public void readsQuotedCsvFieldsSpanningLines() throws Exception {
+        FeedReader reader = reader("\uFEFFisbn,title\r\n1,\"Say \"\"hi\"\", twice\"\r\n2,\"two\nlines\"\n3,plain", 100);
+
+        assertThat(reader.readCsvRecord()).containsExactly("isbn", "title");
+        assertThat(reader.readCsvRecord()).containsExactly("1", "Say \"hi\", twice");
+        assertThat(reader.getRowLine()).isEqualTo(2);
+        assertThat(reader.readCsvRecord()).containsExactly("2", "two\nlines");
+        assertThat(reader.getRowLine()).isEqualTo(3);
+        assertThat(reader.readCsvRecord()).containsExactly("3", "plain");
+        assertThat(reader.getRowLine()).isEqualTo(5);
+        assertThat(reader.readCsvRecord()).isNull();
+    }
+
+    @Test
+    public void readsLinesWithTheirNumbers() throws Exception {
+        FeedReader reader = reader("{\"a\":1}\r\n\n{\"b\":2}\n", 100);
+
+        assertThat(reader.readLine()).isEqualTo("{\"a\":1}");
+        assertThat(reader.readLine()).isEmpty();
+        assertThat(reader.readLine()).isEqualTo("{\"b\":2}");
+        assertThat(reader.getRowLine()).isEqualTo(3);
+        assertThat(reader.readLine()).isNull();
+    }
+
+    @Test
+    public void stopsAtARowLongerThanTheBound() throws Exception {
+        FeedReader reader = reader("1,short\n2,\"unterminated\n3,more\n", 12);
+
+        assertThat(reader.readCsvRecord()).containsExactly("1", "short");
+        try {
+            reader.readCsvRecord();
+            fail("the row is longer than the bound");
+        } catch (FeedReader.RowTooLongException e) {
+            assertThat(e.getLine()).isEqualTo(2);
+        }
+    }
+
+    private static FeedReader reader(String feed, int maxRowLength) {
+        return new FeedReader(new BufferedReader(new StringReader(feed)), maxRowLength);
+    }
+}
@@ -0,0 +1,133 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderBook;
+import com.bookstore.repository.BookStockRepository;
+import com.bookstore.service.OutOfStockException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class InventoryServiceImplTest {
+
+    private static final long FIRST_BOOK = 1L;
+
+    private static final long SECOND_BOOK = 2L;
+
+    private EmbeddedDatabase database;
+
+    private BookStockRepository bookStockRepository;
+
+    private InventoryServiceImpl inventoryService;
+
+    private TransactionTemplate transaction;
+
+    @Before
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("inventory").build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("create table book_stock (book_id bigint primary key, quantity bigint not null)");
+        bookStockRepository = new BookStockRepository(jdbcTemplate);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(database);
+        inventoryService = new InventoryServiceImpl(bookStockRepository, transactionManager);
+        transaction = new TransactionTemplate(transactionManager);
+        bookStockRepository.updateQuantity(FIRST_BOOK, 10);
+        bookStockRepository.updateQuantity(SECOND_BOOK, 10);
+    }
+
+    @After
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void replacingAnOrderTakesWhatIsAddedAndGivesBackWhatIsRemovedOnCommit() {
+        Order replaced = order(FIRST_BOOK, 4, SECOND_BOOK, 4);
+        Order order = order(FIRST_BOOK, 7, SECOND_BOOK, 1);
+
+        transaction.execute(status -> {
+            inventoryService.reserve(replaced, order);
+            assertThat(bookStockRepository.findQuantity(FIRST_BOOK)).isEqualTo(7);
+            assertThat(bookStockRepository.findQuantity(SECOND_BOOK)).isEqualTo(10);
+            return null;
+        });
+
+        assertThat(bookStockRepository.findQuantity(FIRST_BOOK)).isEqualTo(7);
+        assertThat(bookStockRepository.findQuantity(SECOND_BOOK)).isEqualTo(13);
+    }
+
+    @Test
+    public void replacingAnOrderGivesBackWhatWasAddedOnRollbackAndKeepsTheRest() {
+        Order replaced = order(FIRST_BOOK, 4, SECOND_BOOK, 4);
+        Order order = order(FIRST_BOOK, 7, SECOND_BOOK, 1);
+
+        transaction.execute(status -> {
+            inventoryService.reserve(replaced, order);
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(bookStockRepository.findQuantity(FIRST_BOOK)).isEqualTo(10);
+        assertThat(bookStockRepository.findQuantity(SECOND_BOOK)).isEqualTo(10);
+    }
+
+    @Test
+    public void replacingAnOrderRefusesMoreThanTheStockOnTopOfTheReplacedLines() {
+        Order replaced = order(FIRST_BOOK, 4, SECOND_BOOK, 4);
+
+        try {
+            inventoryService.reserve(replaced, order(FIRST_BOOK, 15, SECOND_BOOK, 20));
+            fail("more copies than left were taken");
+        } catch (OutOfStockException e) {
+            assertThat(bookStockRepository.findQuantity(FIRST_BOOK)).isEqualTo(10);
+            assertThat(bookStockRepository.findQuantity(SECOND_BOOK)).isEqualTo(10);
+        }
+        inventoryService.reserve(replaced, order(FIRST_BOOK, 14, SECOND_BOOK, 4));
+        assertThat(bookStockRepository.findQuantity(FIRST_BOOK)).isZero();
+    }
+
+    @Test
+    public void releasingAnOrderGivesBackItsCopiesOnCommitOnly() {
+        Order order = order(FIRST_BOOK, 3, SECOND_BOOK, 2);
+
+        transaction.execute(status -> {
+            inventoryService.release(order);
+            status.setRollbackOnly();
+            return null;
+        });
+        assertThat(bookStockRepository.findQuantity(FIRST_BOOK)).isEqualTo(10);
+
+        transaction.execute(status -> {
+            inventoryService.release(order);
+            assertThat(bookStockRepository.findQuantity(FIRST_BOOK)).isEqualTo(10);
+            return null;
+        });
+        assertThat(bookStockRepository.findQuantity(FIRST_BOOK)).isEqualTo(13);
+        assertThat(bookStockRepository.findQuantity(SECOND_BOOK)).isEqualTo(12);
+    }
+
+    private static Order order(long firstBookId, long firstQuantity, long secondBookId, long secondQuantity) {
+        Order order = new Order();
+        addLine(order, firstBookId, firstQuantity);
+        addLine(order, secondBookId, secondQuantity);
+        return order;
+    }
+
+    private static void addLine(Order order, long bookId, long quantity) {
+        Book book = new Book();
+        book.setBookId(bookId);
+        OrderBook line = new OrderBook(order, book);
+        line.setQuantity(quantity);
+        order.getBooks().add(line);
+    }
+}
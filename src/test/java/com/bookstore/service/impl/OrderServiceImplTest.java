@@ -0,0 +1,439 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.config.ApplicationProperties;
+import com.bookstore.model.Book;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderBook;
+import com.bookstore.model.User;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.BookSalesRepository;
+import com.bookstore.repository.BookStockRepository;
+import com.bookstore.repository.OrderRepository;
+import com.bookstore.service.OutOfStockException;
+import com.bookstore.service.dto.CursorPage;
+import com.bookstore.service.dto.OrderCursor;
+import com.bookstore.service.dto.OrderDTO;
+import com.bookstore.service.dto.OrderSearchCriteria;
+import com.bookstore.service.dto.RejectedOrderDTO;
+import com.bookstore.service.dto.VersionDTO;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class OrderServiceImplTest {
+
+    private static final int ORDERS = 30;
+
+    private static final int LINES_PER_ORDER = 3;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BookStockRepository bookStockRepository;
+
+    private OrderServiceImpl orderService;
+
+    private Statistics statistics;
+
+    private Long firstOrderId;
+
+    private Long secondUserId;
+
+    private List<Book> books;
+
+    @Before
+    public void setUp() {
+        bookStockRepository = new BookStockRepository(new JdbcTemplate(dataSource));
+        orderService = new OrderServiceImpl(orderRepository, new OrderPricer(bookRepository),
+                new BookSuggestionServiceImpl(bookRepository, new ApplicationProperties()),
+                new InventoryServiceImpl(bookStockRepository, transactionManager),
+                new BookSalesServiceImpl(new BookSalesRepository(new JdbcTemplate(dataSource)), transactionManager,
+                        new ApplicationProperties()));
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            User user = new User();
+            user.setUserName("user" + i);
+            user.setUserPassword("$2a$10$0Hu6P1DZA20UL6pSkaPcGusr54b.aXSVpLgUrNlXpUmEmDc91CL4u");
+            users.add(entityManager.persist(user));
+        }
+        secondUserId = users.get(1).getUserId();
+        books = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Book book = new Book();
+            book.setBookTitle("title" + i);
+            book.setBookPrice(BigDecimal.TEN);
+            books.add(entityManager.persist(book));
+        }
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setOrderDate(new Date());
+            order.setOrderPrice(BigDecimal.TEN);
+            order.setUser(users.get(i % users.size()));
+            for (int j = 0; j < LINES_PER_ORDER; j++) {
+                OrderBook line = new OrderBook(order, books.get((i + j) % books.size()));
+                line.setQuantity(1L);
+                order.getBooks().add(line);
+            }
+            entityManager.persist(order);
+            if (firstOrderId == null) {
+                firstOrderId = order.getOrderId();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void findAllOrdersLoadsLinesAndTitlesInTwoStatements() {
+        List<OrderDTO> orders = orderService.findAllOrders();
+
+        assertThat(orders).hasSize(ORDERS);
+        for (OrderDTO order : orders) {
+            assertThat(order.getUserName()).startsWith("user");
+            assertThat(order.getBooks()).hasSize(LINES_PER_ORDER);
+            assertThat(order.getBooks()).extracting("bookTitle").doesNotContainNull();
+        }
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void findByUserNameLoadsLinesAndTitlesInTwoStatements() {
+        List<OrderDTO> orders = orderService.findByUserName("user1");
+
+        assertThat(orders).hasSize(ORDERS / 2);
+        for (OrderDTO order : orders) {
+            assertThat(order.getBooks()).hasSize(LINES_PER_ORDER);
+        }
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void findByUserIdLoadsLinesAndTitlesInTwoStatements() {
+        List<OrderDTO> orders = orderService.findByUserId(secondUserId);
+
+        assertThat(orders).hasSize(ORDERS / 2);
+        for (OrderDTO order : orders) {
+            assertThat(order.getUserName()).isEqualTo("user1");
+            assertThat(order.getBooks()).hasSize(LINES_PER_ORDER);
+        }
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void findOrderByIdFetchesUserLinesAndBooksInOneStatement() {
+        Order order = orderService.findOrderById(firstOrderId);
+
+        assertThat(order.getUser().getUserName()).startsWith("user");
+        assertThat(order.getBooks()).hasSize(LINES_PER_ORDER);
+        for (OrderBook line : order.getBooks()) {
+            assertThat(line.getBook().getBookTitle()).startsWith("title");
+        }
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void findOrderVersionFollowsTheBooksOfTheOrderInOneStatement() {
+        VersionDTO version = orderService.findOrderVersion(firstOrderId);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(version.getLastModified()).isNotNull();
+
+        Book book = entityManager.find(Book.class, books.get(0).getBookId());
+        book.setBookTitle("retitled");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(orderService.findOrderVersion(firstOrderId).getVersion()).isNotEqualTo(version.getVersion());
+        assertThat(orderService.findOrderVersion(-1L)).isNull();
+    }
+
+    @Test
+    public void saveOrderReplacesAStoredOrderWhateverItsVersion() {
+        for (long quantity = 2; quantity <= 3; quantity++) {
+            // as deserialized from a request, without the version
+            Book book = new Book();
+            book.setBookId(books.get(0).getBookId());
+            Order order = new Order();
+            order.setOrderId(firstOrderId);
+            OrderBook line = new OrderBook(order, book);
+            line.setQuantity(quantity);
+            order.getBooks().add(line);
+
+            orderService.saveOrder(order);
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        Order order = orderService.findOrderById(firstOrderId);
+        assertThat(order.getOrderVersion()).isEqualTo(2L);
+        assertThat(order.getBooks()).hasSize(1);
+        assertThat(order.getBooks().get(0).getQuantity()).isEqualTo(3L);
+    }
+
+    @Test
+    public void searchOrdersWalksEveryMatchingOrderOncePageByPage() {
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        criteria.setUserId(secondUserId);
+        criteria.setMinPrice(BigDecimal.ONE);
+
+        List<Long> orderIds = new ArrayList<>();
+        OrderCursor cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<OrderDTO> page = orderService.searchOrders(criteria, cursor, 4);
+            for (OrderDTO order : page.getContent()) {
+                assertThat(order.getUserName()).isEqualTo("user1");
+                assertThat(order.getBooks()).hasSize(LINES_PER_ORDER);
+                orderIds.add(order.getOrderId());
+            }
+            cursor = page.hasNext() ? OrderCursor.decode(page.getNextCursor()) : null;
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(4);
+        assertThat(orderIds).hasSize(ORDERS / 2).doesNotHaveDuplicates();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2 * pages);
+    }
+
+    @Test
+    public void saveOrderCostDoesNotDependOnPastOrdersOfTheBooks() {
+        Book unorderedBook = new Book();
+        unorderedBook.setBookTitle("unordered");
+        unorderedBook.setBookPrice(BigDecimal.TEN);
+        unorderedBook = entityManager.persistFlushFind(unorderedBook);
+        entityManager.clear();
+
+        statistics.clear();
+        saveOneLineOrder(books.get(0).getBookId());
+        long statementsForOrderedBook = statistics.getPrepareStatementCount();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+
+        statistics.clear();
+        saveOneLineOrder(unorderedBook.getBookId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsForOrderedBook);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    public void saveOrderBatchesItsLinesIntoOneStatement() {
+        List<Long> bookIds = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Book book = new Book();
+            book.setBookPrice(BigDecimal.ONE);
+            bookIds.add(entityManager.persist(book).getBookId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        saveOneLineOrder(bookIds.get(0));
+
+        statistics.clear();
+        Order order = new Order();
+        order.setOrderPrice(BigDecimal.TEN);
+        for (Long bookId : bookIds) {
+            Book line = new Book();
+            line.setBookId(bookId);
+            OrderBook orderBook = new OrderBook(order, line);
+            orderBook.setQuantity(1L);
+            order.getBooks().add(orderBook);
+        }
+        orderService.saveOrder(order);
+        entityManager.flush();
+
+        // one query for the prices, one insert for the order, one batch for its 30 lines
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(order.getOrderPrice()).isEqualByComparingTo("30");
+    }
+
+    @Test
+    public void saveOrderPricesLinesFromBooksIgnoringTheClientTotal() {
+        Order order = new Order();
+        order.setOrderPrice(BigDecimal.ONE);
+        for (int i = 0; i < 2; i++) {
+            Book book = new Book();
+            book.setBookId(books.get(i).getBookId());
+            OrderBook line = new OrderBook(order, book);
+            line.setQuantity(i + 2L);
+            line.setUnitPrice(BigDecimal.ONE);
+            order.getBooks().add(line);
+        }
+        orderService.saveOrder(order);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(order.getOrderPrice()).isEqualByComparingTo("50");
+        for (OrderBook line : orderService.findOrderById(order.getOrderId()).getBooks()) {
+            assertThat(line.getUnitPrice()).isEqualByComparingTo(BigDecimal.TEN);
+        }
+    }
+
+    @Test
+    public void saveOrderKeepsTheSoldPricesOfReplacedLinesAndPricesNewOnesFromBooks() {
+        Order order = new Order();
+        Book book = new Book();
+        book.setBookId(books.get(0).getBookId());
+        OrderBook line = new OrderBook(order, book);
+        line.setQuantity(1L);
+        order.getBooks().add(line);
+        orderService.saveOrder(order);
+        entityManager.flush();
+        entityManager.clear();
+        for (Book repriced : bookRepository.findAll()) {
+            repriced.setBookPrice(BigDecimal.valueOf(20));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // as deserialized from a request, with prices the client made up
+        Order update = new Order();
+        update.setOrderId(order.getOrderId());
+        for (int i = 0; i < 2; i++) {
+            Book lineBook = new Book();
+            lineBook.setBookId(books.get(i).getBookId());
+            OrderBook updateLine = new OrderBook(update, lineBook);
+            updateLine.setQuantity(1L);
+            updateLine.setUnitPrice(BigDecimal.ONE);
+            update.getBooks().add(updateLine);
+        }
+        orderService.saveOrder(update);
+        entityManager.flush();
+        entityManager.clear();
+
+        Order stored = orderService.findOrderById(order.getOrderId());
+        assertThat(stored.getOrderPrice()).isEqualByComparingTo("30");
+        for (OrderBook storedLine : stored.getBooks()) {
+            assertThat(storedLine.getUnitPrice()).isEqualByComparingTo(
+                    storedLine.getBook().getBookId().equals(books.get(0).getBookId()) ? "10" : "20");
+        }
+    }
+
+    @Test
+    public void saveOrderTakesTheCopiesAddedToAStoredOrderFromTheStock() {
+        Long bookId = books.get(0).getBookId();
+        // committed apart, as the stock is taken in transactions of its own
+        TransactionTemplate ownTransaction = new TransactionTemplate(transactionManager);
+        ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        ownTransaction.execute(status -> {
+            bookStockRepository.updateQuantity(bookId, 5);
+            return null;
+        });
+
+        // the first order has one copy of the book
+        try {
+            orderService.saveOrder(oneLineUpdate(firstOrderId, bookId, 7L));
+            fail("more copies than left were taken");
+        } catch (OutOfStockException e) {
+            assertThat(bookStockRepository.findQuantity(bookId)).isEqualTo(5);
+        }
+        orderService.saveOrder(oneLineUpdate(firstOrderId, bookId, 6L));
+        assertThat(bookStockRepository.findQuantity(bookId)).isZero();
+    }
+
+    @Test
+    public void placeOrdersStoresThePlaceableOrdersAndReportsTheOthers() {
+        Order placeable = oneLineUpdate(null, books.get(0).getBookId(), 2L);
+        Order unknownBook = oneLineUpdate(null, -1L, 1L);
+        Order noQuantity = oneLineUpdate(null, books.get(1).getBookId(), 0L);
+
+        statistics.clear();
+        List<RejectedOrderDTO> rejected = orderService.placeOrders(Arrays.asList(placeable, unknownBook, noQuantity));
+        entityManager.flush();
+
+        assertThat(rejected).extracting("order").containsOnly(unknownBook, noQuantity);
+        for (RejectedOrderDTO rejection : rejected) {
+            assertThat(rejection.getReason()).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(placeable.getOrderId()).isNotNull();
+        assertThat(placeable.getOrderDate()).isNotNull();
+        assertThat(placeable.getOrderPrice()).isEqualByComparingTo("20");
+        assertThat(unknownBook.getOrderId()).isNull();
+        // one query for the prices of all orders, one insert for the order, one for its line
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void saveOrderRejectsUnknownBooks() {
+        Book book = new Book();
+        book.setBookId(-1L);
+        Order order = new Order();
+        OrderBook line = new OrderBook(order, book);
+        line.setQuantity(1L);
+        order.getBooks().add(line);
+
+        orderService.saveOrder(order);
+    }
+
+    /**
+     * An order with one line, as deserialized from a request; without id it is a new order.
+     */
+    private static Order oneLineUpdate(Long orderId, Long bookId, Long quantity) {
+        Book book = new Book();
+        book.setBookId(bookId);
+        Order order = new Order();
+        order.setOrderId(orderId);
+        OrderBook line = new OrderBook(order, book);
+        line.setQuantity(quantity);
+        order.getBooks().add(line);
+        return order;
+    }
+
+    /**
+     * Saves an order referencing the book the way a deserialized request does, by id only.
+     */
+    private void saveOneLineOrder(Long bookId) {
+        Book book = new Book();
+        book.setBookId(bookId);
+        Order order = new Order();
+        order.setOrderPrice(BigDecimal.TEN);
+        order.setUser(entityManager.find(User.class, secondUserId));
+        OrderBook line = new OrderBook(order, book);
+        line.setQuantity(1L);
+        order.getBooks().add(line);
+
+        orderService.saveOrder(order);
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,86 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.repository.BookStockRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StockReserverTest {
+
+    private static final long HOT_BOOK = 1L;
+
+    private EmbeddedDatabase database;
+
+    private BookStockRepository bookStockRepository;
+
+    private StockReserver stockReserver;
+
+    @Before
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("stock").build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("create table book_stock (book_id bigint primary key, quantity bigint not null)");
+        bookStockRepository = new BookStockRepository(jdbcTemplate);
+        stockReserver = new StockReserver(bookStockRepository, new DataSourceTransactionManager(database));
+    }
+
+    @After
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void concurrentCheckoutsNeverTakeMoreThanTheStock() throws Exception {
+        bookStockRepository.updateQuantity(HOT_BOOK, 1000);
+
+        ExecutorService threads = Executors.newFixedThreadPool(32);
+        List<Callable<StockReserver.Outcome>> checkouts = new ArrayList<>();
+        for (int i = 0; i < 1600; i++) {
+            long quantity = 1 + i % 2;
+            checkouts.add(() -> stockReserver.take(HOT_BOOK, quantity));
+        }
+        long taken = 0;
+        List<Future<StockReserver.Outcome>> outcomes = threads.invokeAll(checkouts);
+        for (int i = 0; i < outcomes.size(); i++) {
+            if (outcomes.get(i).get() == StockReserver.Outcome.TAKEN) {
+                taken += 1 + i % 2;
+            }
+        }
+        threads.shutdown();
+
+        assertThat(taken + bookStockRepository.findQuantity(HOT_BOOK)).isEqualTo(1000);
+        // at most one copy is left over, by pairs refused at the end
+        assertThat(bookStockRepository.findQuantity(HOT_BOOK)).isBetween(0L, 1L);
+    }
+
+    @Test
+    public void refusesWhatDoesNotFitAndTakesTheRest() {
+        bookStockRepository.updateQuantity(HOT_BOOK, 3);
+
+        assertThat(stockReserver.take(HOT_BOOK, 5)).isEqualTo(StockReserver.Outcome.REFUSED);
+        assertThat(stockReserver.take(HOT_BOOK, 2)).isEqualTo(StockReserver.Outcome.TAKEN);
+        assertThat(stockReserver.take(HOT_BOOK, 2)).isEqualTo(StockReserver.Outcome.REFUSED);
+        stockReserver.giveBack(HOT_BOOK, 2);
+        assertThat(bookStockRepository.findQuantity(HOT_BOOK)).isEqualTo(3);
+    }
+
+    @Test
+    public void booksWithoutStockAreNotTracked() {
+        assertThat(stockReserver.take(2L, 100)).isEqualTo(StockReserver.Outcome.UNTRACKED);
+        assertThat(bookStockRepository.findQuantity(2L)).isNull();
+    }
+}